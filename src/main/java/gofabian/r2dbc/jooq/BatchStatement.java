@@ -0,0 +1,156 @@
+package gofabian.r2dbc.jooq;
+
+import gofabian.r2dbc.jooq.converter.Converter;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.jooq.*;
+import org.jooq.conf.ParamType;
+import org.jooq.conf.Settings;
+import org.jooq.conf.StatementType;
+import org.jooq.impl.DSL;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL string with several sets of bind values that are sent to the database in a single R2DBC {@link Statement}, one
+ * binding set per {@link Statement#add()}.
+ * <p>
+ * The database client of Spring does not support batches, so the SQL string is rendered with the native bind markers
+ * of the R2DBC driver: <code>?</code> for MySQL, <code>$1</code> otherwise.
+ */
+class BatchStatement {
+
+    private final String sql;
+    private final BindingPlan bindingPlan;
+    private final List<Object[]> bindings = new ArrayList<>();
+
+    BatchStatement(String sql, BindingPlan bindingPlan) {
+        this.sql = sql;
+        this.bindingPlan = bindingPlan;
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    /**
+     * @param values values of the non-inlined parameters
+     */
+    void add(Object[] values) {
+        if (values.length != bindingPlan.size()) {
+            throw new IllegalArgumentException("Expected " + bindingPlan.size() + " bind values but got " +
+                    values.length);
+        }
+        bindings.add(values);
+    }
+
+    /**
+     * Execute statement on the given connection.
+     *
+     * @return update count per binding set
+     */
+    Flux<Integer> execute(Connection connection) {
+        Statement statement = connection.createStatement(sql);
+        for (int i = 0; i < bindings.size(); i++) {
+            if (i > 0) {
+                statement.add();
+            }
+            Object[] values = bindings.get(i);
+            for (int j = 0; j < values.length; j++) {
+                bindingPlan.bind(statement, j, values[j]);
+            }
+        }
+        return Flux.from(statement.execute())
+                .concatMap(Result::getRowsUpdated);
+    }
+
+    /**
+     * Group consecutive queries with equal SQL strings into batch statements.
+     */
+    static List<BatchStatement> create(DSLContext dslContext, Converter converter,
+                                       Iterable<? extends Query> queries) {
+        DSLContext nativeContext = createNativeContext(dslContext);
+        List<BatchStatement> statements = new ArrayList<>();
+        BatchStatement statement = null;
+        for (Query query : queries) {
+            String sql = renderNativeSql(nativeContext, query);
+            if (statement == null || !statement.sql.equals(sql)) {
+                statement = new BatchStatement(sql, BindingPlan.create(query.getParams().values(), converter));
+                statements.add(statement);
+            }
+            statement.add(getBindValues(query));
+        }
+        return statements;
+    }
+
+    /**
+     * Create batch statement from template query and bind values in order of the non-inlined parameters.
+     */
+    static BatchStatement create(DSLContext dslContext, Converter converter, Query template,
+                                 Object[][] bindings) {
+        String sql = renderNativeSql(createNativeContext(dslContext), template);
+        List<Param<?>> params = getNonInlinedParams(template);
+        BatchStatement statement = new BatchStatement(sql, BindingPlan.create(params, converter));
+        for (Object[] values : bindings) {
+            if (values.length != params.size()) {
+                throw new IllegalArgumentException("Expected " + params.size() + " bind values but got " +
+                        values.length);
+            }
+            Object[] converted = new Object[values.length];
+            for (int i = 0; i < values.length; i++) {
+                converted[i] = params.get(i).getDataType().convert(values[i]);
+            }
+            statement.add(converted);
+        }
+        return statement;
+    }
+
+    private static DSLContext createNativeContext(DSLContext dslContext) {
+        Settings settings = (Settings) dslContext.settings().clone();
+        settings.setStatementType(StatementType.PREPARED_STATEMENT);
+        if (dslContext.family() == SQLDialect.MYSQL) {
+            settings.setParamType(ParamType.INDEXED);
+        } else {
+            settings.setParamType(ParamType.NAMED);
+            settings.setRenderNamedParamPrefix("$");
+        }
+        return DSL.using(dslContext.configuration().derive(settings));
+    }
+
+    private static String renderNativeSql(DSLContext nativeContext, Query query) {
+        if (nativeContext.family() == SQLDialect.MYSQL) {
+            return nativeContext.render(query);
+        }
+        for (Param<?> param : getNonInlinedParams(query)) {
+            if (param.getParamName() != null) {
+                // would be rendered as "$name"
+                throw new IllegalArgumentException("Named parameters are not supported in batches: " +
+                        param.getParamName());
+            }
+        }
+        return nativeContext.renderNamedParams(query);
+    }
+
+    private static Object[] getBindValues(Query query) {
+        List<Param<?>> params = getNonInlinedParams(query);
+        Object[] values = new Object[params.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = params.get(i).getValue();
+        }
+        return values;
+    }
+
+    private static List<Param<?>> getNonInlinedParams(Query query) {
+        List<Param<?>> params = new ArrayList<>();
+        for (Param<?> param : query.getParams().values()) {
+            if (param.getParamType() != ParamType.INLINED) {
+                params.add(param);
+            }
+        }
+        return params;
+    }
+
+}
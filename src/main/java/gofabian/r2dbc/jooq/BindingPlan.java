@@ -0,0 +1,195 @@
+package gofabian.r2dbc.jooq;
+
+import gofabian.r2dbc.jooq.converter.Converter;
+import io.r2dbc.spi.Statement;
+import org.jooq.Param;
+import org.jooq.conf.ParamType;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.*;
+import java.util.*;
+
+/**
+ * Precomputed binding of query parameters to an R2DBC execution spec.
+ * <p>
+ * The binder of each parameter is resolved once from the Java type of the parameter: R2DBC type for null values and
+ * whether non-null values must be passed to the {@link Converter}. Plans are kept per query shape by the
+ * {@link SqlCache}, queries without SQL cache are bound directly, see
+ * {@link #bind(DatabaseClient.GenericExecuteSpec, Collection, Converter)}.
+ */
+class BindingPlan {
+
+    /**
+     * Types that the R2DBC drivers support natively.
+     */
+    private static final Set<Class<?>> IDENTITY_TYPES = new HashSet<>(Arrays.asList(
+            String.class, Boolean.class, Byte.class, Short.class, Integer.class, Long.class, Float.class,
+            Double.class, BigDecimal.class, BigInteger.class, byte[].class, UUID.class, LocalDate.class,
+            LocalTime.class, LocalDateTime.class, OffsetDateTime.class, OffsetTime.class, ZonedDateTime.class,
+            Instant.class
+    ));
+
+    private final Converter converter;
+    private final Binder[] binders;
+
+    private BindingPlan(Converter converter, Binder[] binders) {
+        this.converter = converter;
+        this.binders = binders;
+    }
+
+    static BindingPlan create(Collection<? extends Param<?>> params, Converter converter) {
+        int size = 0;
+        for (Param<?> param : params) {
+            if (param.getParamType() != ParamType.INLINED) {
+                size++;
+            }
+        }
+
+        Binder[] binders = new Binder[size];
+        int i = 0;
+        for (Param<?> param : params) {
+            if (param.getParamType() != ParamType.INLINED) {
+                binders[i++] = createBinder(param.getType(), converter);
+            }
+        }
+        return new BindingPlan(converter, binders);
+    }
+
+    private static Binder createBinder(Class<?> type, Converter converter) {
+        Class<?> nullType = converter.toR2dbcType(type);
+        if (IDENTITY_TYPES.contains(type) && !converter.convertsToR2dbc(type)) {
+            return new IdentityBinder(nullType);
+        }
+        return new ConvertingBinder(nullType, converter);
+    }
+
+    /**
+     * Bind the current values of the given parameters without a plan, e. g. for queries that are executed once. The
+     * converter resolves the conversions per type itself, see {@link gofabian.r2dbc.jooq.converter.CompositeConverter}.
+     */
+    static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec executeSpec,
+                                                  Collection<? extends Param<?>> params, Converter converter) {
+        int i = 0;
+        for (Param<?> param : params) {
+            if (param.getParamType() != ParamType.INLINED) {
+                Object value = param.getValue();
+                if (value == null) {
+                    executeSpec = executeSpec.bindNull(i, converter.toR2dbcType(param.getType()));
+                } else {
+                    executeSpec = executeSpec.bind(i, converter.toR2dbcValue(value));
+                }
+                i++;
+            }
+        }
+        return executeSpec;
+    }
+
+    boolean isCompatible(Converter converter) {
+        return this.converter == converter;
+    }
+
+    int size() {
+        return binders.length;
+    }
+
+    /**
+     * Bind the current values of the given parameters. The parameters must have the same structure as the parameters
+     * that this plan was created from.
+     */
+    DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec executeSpec,
+                                           Collection<? extends Param<?>> params) {
+        int i = 0;
+        for (Param<?> param : params) {
+            if (param.getParamType() != ParamType.INLINED) {
+                checkIndex(i);
+                executeSpec = bind(executeSpec, i, param.getValue());
+                i++;
+            }
+        }
+        checkSize(i);
+        return executeSpec;
+    }
+
+    DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec executeSpec, int index, Object value) {
+        Binder binder = binders[index];
+        if (value == null) {
+            return executeSpec.bindNull(index, binder.nullType);
+        }
+        return executeSpec.bind(index, binder.toR2dbcValue(value));
+    }
+
+    /**
+     * Bind the current values of the given parameters to a native R2DBC statement.
+     */
+    void bind(Statement statement, Collection<? extends Param<?>> params) {
+        int i = 0;
+        for (Param<?> param : params) {
+            if (param.getParamType() != ParamType.INLINED) {
+                checkIndex(i);
+                bind(statement, i, param.getValue());
+                i++;
+            }
+        }
+        checkSize(i);
+    }
+
+    void bind(Statement statement, int index, Object value) {
+        Binder binder = binders[index];
+        if (value == null) {
+            statement.bindNull(index, binder.nullType);
+        } else {
+            statement.bind(index, binder.toR2dbcValue(value));
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index == binders.length) {
+            throw new IllegalStateException("Query has more parameters than expected: " + binders.length);
+        }
+    }
+
+    private void checkSize(int size) {
+        if (size != binders.length) {
+            throw new IllegalStateException("Query has less parameters than expected: " + size + " < " +
+                    binders.length);
+        }
+    }
+
+    private static abstract class Binder {
+        final Class<?> nullType;
+
+        Binder(Class<?> nullType) {
+            this.nullType = nullType;
+        }
+
+        abstract Object toR2dbcValue(Object value);
+    }
+
+    private static class IdentityBinder extends Binder {
+        IdentityBinder(Class<?> nullType) {
+            super(nullType);
+        }
+
+        @Override
+        Object toR2dbcValue(Object value) {
+            return value;
+        }
+    }
+
+    private static class ConvertingBinder extends Binder {
+        private final Converter converter;
+
+        ConvertingBinder(Class<?> nullType, Converter converter) {
+            super(nullType);
+            this.converter = converter;
+        }
+
+        @Override
+        Object toR2dbcValue(Object value) {
+            return converter.toR2dbcValue(value);
+        }
+    }
+
+}
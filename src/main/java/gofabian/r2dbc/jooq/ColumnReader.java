@@ -0,0 +1,82 @@
+package gofabian.r2dbc.jooq;
+
+import gofabian.r2dbc.jooq.converter.Converter;
+import io.r2dbc.spi.Row;
+import org.jooq.Field;
+import org.jooq.SQLDialect;
+
+/**
+ * Reads the column values of R2DBC rows and converts them to the JOOQ types of the given fields.
+ * <p>
+ * Columns are decoded directly as the target type if the driver supports it natively, see {@link NativeDecoding}.
+ * Otherwise the value is read as {@link Object} and converted via {@link Converter}. If the driver cannot decode a
+ * column natively, e. g. an enum column for a String field, the column falls back to conversion for all later rows
+ * of this reader.
+ */
+class ColumnReader implements GeneratedRowMapper.ValueReader {
+
+    private final Converter converter;
+    private final Class<?>[] targetTypes;
+
+    // columns that are decoded as target type by the driver, decided from the dialect and revised once per column on
+    // the first failed decoding. The array is replaced, never modified, so the volatile field publishes it safely.
+    private volatile boolean[] nativeDecoding;
+
+    ColumnReader(SQLDialect family, Converter converter, Field<?>[] fields) {
+        this.converter = converter;
+        this.targetTypes = new Class<?>[fields.length];
+        boolean[] nativeDecoding = new boolean[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            Class<?> targetType = fields[i].getConverter().fromType();
+            targetTypes[i] = targetType;
+            nativeDecoding[i] = NativeDecoding.canDecode(family, targetType) &&
+                    !converter.convertsToJooq(targetType, targetType);
+        }
+        this.nativeDecoding = nativeDecoding;
+    }
+
+    int size() {
+        return targetTypes.length;
+    }
+
+    /**
+     * Read values in fields order and convert them to JOOQ types.
+     */
+    Object[] readValues(Row row) {
+        boolean[] nativeDecoding = this.nativeDecoding;
+        Object[] values = new Object[targetTypes.length];
+        for (int i = 0; i < targetTypes.length; i++) {
+            values[i] = readValue(row, i, nativeDecoding[i]);
+        }
+        return values;
+    }
+
+    @Override
+    public Object read(Row row, int index) {
+        return readValue(row, index, nativeDecoding[index]);
+    }
+
+    private Object readValue(Row row, int index, boolean decodeNatively) {
+        if (decodeNatively) {
+            try {
+                return row.get(index, targetTypes[index]);
+            } catch (IllegalArgumentException | UnsupportedOperationException e) {
+                // the driver cannot decode this column as target type, e. g. an enum column for a String field
+                disableNativeDecoding(index);
+            }
+        }
+        Object value = row.get(index, Object.class);
+        return converter.toJooqValue(value, targetTypes[index]);
+    }
+
+    private synchronized void disableNativeDecoding(int index) {
+        boolean[] nativeDecoding = this.nativeDecoding.clone();
+        nativeDecoding[index] = false;
+        this.nativeDecoding = nativeDecoding;
+    }
+
+    boolean isDecodedNatively(int index) {
+        return nativeDecoding[index];
+    }
+
+}
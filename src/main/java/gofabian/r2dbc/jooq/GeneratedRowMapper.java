@@ -0,0 +1,27 @@
+package gofabian.r2dbc.jooq;
+
+import io.r2dbc.spi.Row;
+import org.jooq.Table;
+import org.jooq.TableRecord;
+
+/**
+ * Row mapper for a table record that is generated at build time, see
+ * {@link gofabian.r2dbc.jooq.processor.GenerateRowMappers}.
+ * <p>
+ * Generated mappers are discovered via {@link java.util.ServiceLoader}. They are used instead of the generic mapping
+ * if a query selects exactly the fields of the table in order, e. g. <code>dslContext.selectFrom(table)</code>.
+ */
+public interface GeneratedRowMapper<R extends TableRecord<R>> {
+
+    Table<R> getTable();
+
+    /**
+     * Create a record from the row. The values are read in table fields order, each value has the type of its field.
+     */
+    R map(Row row, ValueReader valueReader);
+
+    interface ValueReader {
+        Object read(Row row, int index);
+    }
+
+}
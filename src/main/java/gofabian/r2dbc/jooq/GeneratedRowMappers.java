@@ -0,0 +1,39 @@
+package gofabian.r2dbc.jooq;
+
+import java.util.*;
+
+/**
+ * Registry of the {@link GeneratedRowMapper}s on the classpath by record type. The mappers are loaded once.
+ */
+class GeneratedRowMappers {
+
+    private static final Map<Class<?>, GeneratedRowMapper<?>> mappers = load();
+
+    private static Map<Class<?>, GeneratedRowMapper<?>> load() {
+        @SuppressWarnings("unchecked")
+        Class<GeneratedRowMapper<?>> serviceType = (Class<GeneratedRowMapper<?>>) (Class<?>) GeneratedRowMapper.class;
+        ServiceLoader<GeneratedRowMapper<?>> serviceLoader = ServiceLoader.load(serviceType);
+
+        Map<Class<?>, GeneratedRowMapper<?>> mappers = new HashMap<>();
+        Iterator<GeneratedRowMapper<?>> iterator = serviceLoader.iterator();
+        while (true) {
+            GeneratedRowMapper<?> mapper;
+            try {
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                mapper = iterator.next();
+            } catch (ServiceConfigurationError e) {
+                // mapper cannot be loaded, fall back to generic mapping
+                continue;
+            }
+            mappers.put(mapper.getTable().getRecordType(), mapper);
+        }
+        return Collections.unmodifiableMap(mappers);
+    }
+
+    static GeneratedRowMapper<?> get(Class<?> recordType) {
+        return mappers.get(recordType);
+    }
+
+}
@@ -4,19 +4,77 @@ import org.jooq.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 class JooqInternals {
 
+    private static final Class<?> delegatingQueryClass;
     private static final java.lang.reflect.Field delegatingQueryField;
+    private static final Class<?> abstractQueryClass;
+    private static final java.lang.reflect.Field queryTimeoutField;
+    private static final Class<?> resultQueryClass;
+    private static final java.lang.reflect.Field resultQueryFetchSizeField;
+    private static final java.lang.reflect.Field resultQueryMaxRowsField;
+    private static final Class<?> selectQueryClass;
+    private static final java.lang.reflect.Field selectLimitField;
+    private static final java.lang.reflect.Field selectUnionField;
+    private static final java.lang.reflect.Field selectOrderByField;
+    private static final java.lang.reflect.Field selectUnionOrderByField;
+    private static final java.lang.reflect.Field selectUnionLimitField;
+    private static final java.lang.reflect.Method limitIsApplicableMethod;
+    private static final java.lang.reflect.Method limitOffsetZeroMethod;
+    private static final java.lang.reflect.Field limitNumberOfRowsField;
+    private static final Class<?> sortFieldClass;
+    private static final java.lang.reflect.Field sortFieldNullsFirstField;
+    private static final java.lang.reflect.Field sortFieldNullsLastField;
     private static final java.lang.reflect.Field tableField;
     private static final java.lang.reflect.Field returningResolvedListField;
     private static final java.lang.reflect.Field returningListField;
+    private static final Class<?> insertQueryClass;
+    private static final java.lang.reflect.Field insertMapsField;
+    private static final java.lang.reflect.Field insertSelectField;
+    private static final java.lang.reflect.Field insertOnDuplicateKeyUpdateField;
+    private static final java.lang.reflect.Field insertOnDuplicateKeyIgnoreField;
+    private static final java.lang.reflect.Field insertMapsValuesField;
+    private static final java.lang.reflect.Field insertMapsRowsField;
 
     static {
         try {
-            Class<?> delegatingQueryClass = Class.forName("org.jooq.impl.AbstractDelegatingQuery");
+            delegatingQueryClass = Class.forName("org.jooq.impl.AbstractDelegatingQuery");
             delegatingQueryField = delegatingQueryClass.getDeclaredField("delegate");
             delegatingQueryField.setAccessible(true);
+            abstractQueryClass = Class.forName("org.jooq.impl.AbstractQuery");
+            queryTimeoutField = abstractQueryClass.getDeclaredField("timeout");
+            queryTimeoutField.setAccessible(true);
+            resultQueryClass = Class.forName("org.jooq.impl.AbstractResultQuery");
+            resultQueryFetchSizeField = resultQueryClass.getDeclaredField("fetchSize");
+            resultQueryFetchSizeField.setAccessible(true);
+            resultQueryMaxRowsField = resultQueryClass.getDeclaredField("maxRows");
+            resultQueryMaxRowsField.setAccessible(true);
+            selectQueryClass = Class.forName("org.jooq.impl.SelectQueryImpl");
+            selectLimitField = selectQueryClass.getDeclaredField("limit");
+            selectLimitField.setAccessible(true);
+            selectUnionField = selectQueryClass.getDeclaredField("union");
+            selectUnionField.setAccessible(true);
+            selectOrderByField = selectQueryClass.getDeclaredField("orderBy");
+            selectOrderByField.setAccessible(true);
+            selectUnionOrderByField = selectQueryClass.getDeclaredField("unionOrderBy");
+            selectUnionOrderByField.setAccessible(true);
+            selectUnionLimitField = selectQueryClass.getDeclaredField("unionLimit");
+            selectUnionLimitField.setAccessible(true);
+            Class<?> limitClass = Class.forName("org.jooq.impl.Limit");
+            limitIsApplicableMethod = limitClass.getDeclaredMethod("isApplicable");
+            limitIsApplicableMethod.setAccessible(true);
+            limitOffsetZeroMethod = limitClass.getDeclaredMethod("offsetZero");
+            limitOffsetZeroMethod.setAccessible(true);
+            limitNumberOfRowsField = limitClass.getDeclaredField("numberOfRows");
+            limitNumberOfRowsField.setAccessible(true);
+            sortFieldClass = Class.forName("org.jooq.impl.SortFieldImpl");
+            sortFieldNullsFirstField = sortFieldClass.getDeclaredField("nullsFirst");
+            sortFieldNullsFirstField.setAccessible(true);
+            sortFieldNullsLastField = sortFieldClass.getDeclaredField("nullsLast");
+            sortFieldNullsLastField.setAccessible(true);
             Class<?> dmlQueryClass = Class.forName("org.jooq.impl.AbstractDMLQuery");
             tableField = dmlQueryClass.getDeclaredField("table");
             tableField.setAccessible(true);
@@ -24,7 +82,21 @@ class JooqInternals {
             returningListField.setAccessible(true);
             returningResolvedListField = dmlQueryClass.getDeclaredField("returningResolvedAsterisks");
             returningResolvedListField.setAccessible(true);
-        } catch (ClassNotFoundException | NoSuchFieldException e) {
+            insertQueryClass = Class.forName("org.jooq.impl.InsertQueryImpl");
+            insertMapsField = insertQueryClass.getDeclaredField("insertMaps");
+            insertMapsField.setAccessible(true);
+            insertSelectField = insertQueryClass.getDeclaredField("select");
+            insertSelectField.setAccessible(true);
+            insertOnDuplicateKeyUpdateField = insertQueryClass.getDeclaredField("onDuplicateKeyUpdate");
+            insertOnDuplicateKeyUpdateField.setAccessible(true);
+            insertOnDuplicateKeyIgnoreField = insertQueryClass.getDeclaredField("onDuplicateKeyIgnore");
+            insertOnDuplicateKeyIgnoreField.setAccessible(true);
+            Class<?> insertMapsClass = Class.forName("org.jooq.impl.FieldMapsForInsert");
+            insertMapsValuesField = insertMapsClass.getDeclaredField("values");
+            insertMapsValuesField.setAccessible(true);
+            insertMapsRowsField = insertMapsClass.getDeclaredField("rows");
+            insertMapsRowsField.setAccessible(true);
+        } catch (ClassNotFoundException | NoSuchFieldException | NoSuchMethodException e) {
             throw new RuntimeException("Unsupported JOOQ version", e);
         }
     }
@@ -33,6 +105,107 @@ class JooqInternals {
         return getPrivateField(abstractDelegatingQuery, delegatingQueryField);
     }
 
+    /**
+     * @return whether the query is a result query, also if wrapped, e. g. a <code>SelectImpl</code>
+     */
+    public static boolean isResultQuery(Query query) {
+        return resultQueryClass.isInstance(unwrapDelegate(query));
+    }
+
+    /**
+     * @return fetch size set via {@link ResultQuery#fetchSize(int)} or 0
+     */
+    public static int getQueryFetchSize(Query query) {
+        Query unwrapped = unwrapDelegate(query);
+        return resultQueryClass.isInstance(unwrapped) ? getPrivateField(unwrapped, resultQueryFetchSizeField) : 0;
+    }
+
+    /**
+     * @return timeout in seconds set via {@link Query#queryTimeout(int)} or 0
+     */
+    public static int getQueryTimeout(Query query) {
+        Query unwrapped = unwrapDelegate(query);
+        return abstractQueryClass.isInstance(unwrapped) ? getPrivateField(unwrapped, queryTimeoutField) : 0;
+    }
+
+    /**
+     * @return max rows set via {@link ResultQuery#maxRows(int)} or 0
+     */
+    public static int getQueryMaxRows(Query query) {
+        Query unwrapped = unwrapDelegate(query);
+        return resultQueryClass.isInstance(unwrapped) ? getPrivateField(unwrapped, resultQueryMaxRowsField) : 0;
+    }
+
+    /**
+     * @return ORDER BY clause of the select query or of its union, empty if the query is no select query
+     */
+    public static List<SortField<?>> getSelectOrderBy(Query query) {
+        Query unwrapped = unwrapDelegate(query);
+        if (!selectQueryClass.isInstance(unwrapped)) {
+            return new ArrayList<>();
+        }
+        List<?> union = getPrivateField(unwrapped, selectUnionField);
+        return new ArrayList<>(getPrivateField(unwrapped, union.isEmpty() ? selectOrderByField :
+                selectUnionOrderByField));
+    }
+
+    /**
+     * @return number of rows of the LIMIT clause of the select query or of its union, 0 if there is no limit
+     */
+    public static int getSelectLimit(Query query) {
+        Object limit = getSelectLimitClause(query);
+        if (limit == null || !(Boolean) invoke(limit, limitIsApplicableMethod)) {
+            return 0;
+        }
+        Field<?> numberOfRows = getPrivateField(limit, limitNumberOfRowsField);
+        if (!(numberOfRows instanceof Param) || !(((Param<?>) numberOfRows).getValue() instanceof Number)) {
+            return 0;
+        }
+        return ((Number) ((Param<?>) numberOfRows).getValue()).intValue();
+    }
+
+    /**
+     * @return whether the select query or its union has an OFFSET clause
+     */
+    public static boolean hasSelectOffset(Query query) {
+        Object limit = getSelectLimitClause(query);
+        return limit != null && !(Boolean) invoke(limit, limitOffsetZeroMethod);
+    }
+
+    private static Object getSelectLimitClause(Query query) {
+        Query unwrapped = unwrapDelegate(query);
+        if (!selectQueryClass.isInstance(unwrapped)) {
+            return null;
+        }
+        List<?> union = getPrivateField(unwrapped, selectUnionField);
+        return getPrivateField(unwrapped, union.isEmpty() ? selectLimitField : selectUnionLimitField);
+    }
+
+    /**
+     * @return <code>true</code> for NULLS FIRST, <code>false</code> for NULLS LAST or <code>null</code> for the
+     * default null ordering of the database
+     */
+    public static Boolean getNullsFirst(SortField<?> sortField) {
+        if (!sortFieldClass.isInstance(sortField)) {
+            return null;
+        }
+        if (getPrivateField(sortField, sortFieldNullsFirstField)) {
+            return true;
+        }
+        if (getPrivateField(sortField, sortFieldNullsLastField)) {
+            return false;
+        }
+        return null;
+    }
+
+    private static Query unwrapDelegate(Query query) {
+        Query unwrapped = query;
+        while (delegatingQueryClass.isInstance(unwrapped)) {
+            unwrapped = getPrivateField(unwrapped, delegatingQueryField);
+        }
+        return unwrapped;
+    }
+
     public static <R extends Record> Table<R> getQueryTable(StoreQuery<R> abstractDmlQuery) {
         return getPrivateField(abstractDmlQuery, tableField);
     }
@@ -45,6 +218,44 @@ class JooqInternals {
         return new ArrayList<>(getPrivateField(abstractDmlQuery, returningResolvedListField));
     }
 
+    /**
+     * @return whether the query is an <code>INSERT ... VALUES</code> query with a known number of rows, i. e. no
+     * <code>INSERT ... SELECT</code> and no <code>ON DUPLICATE KEY</code> clause
+     */
+    public static boolean isInsertValuesQuery(StoreQuery<?> query) {
+        if (!insertQueryClass.isInstance(query)) {
+            return false;
+        }
+        Boolean onDuplicateKeyUpdate = getPrivateField(query, insertOnDuplicateKeyUpdateField);
+        Boolean onDuplicateKeyIgnore = getPrivateField(query, insertOnDuplicateKeyIgnoreField);
+        return getPrivateField(query, insertSelectField) == null && !onDuplicateKeyUpdate && !onDuplicateKeyIgnore;
+    }
+
+    /**
+     * @return number of rows in the VALUES clause of an insert query
+     */
+    public static int getInsertRowCount(StoreQuery<?> insertQuery) {
+        Object insertMaps = getPrivateField(insertQuery, insertMapsField);
+        return getPrivateField(insertMaps, insertMapsRowsField);
+    }
+
+    /**
+     * @return fields in the VALUES clause of an insert query
+     */
+    public static Set<Field<?>> getInsertFields(StoreQuery<?> insertQuery) {
+        Object insertMaps = getPrivateField(insertQuery, insertMapsField);
+        Map<Field<?>, ?> values = getPrivateField(insertMaps, insertMapsValuesField);
+        return values.keySet();
+    }
+
+    private static Object invoke(Object object, java.lang.reflect.Method method, Object... args) {
+        try {
+            return method.invoke(object, args);
+        } catch (IllegalAccessException | java.lang.reflect.InvocationTargetException e) {
+            throw new RuntimeException("Unsupported JOOQ version", e);
+        }
+    }
+
     private static <R> R getPrivateField(Object object, java.lang.reflect.Field privateField) {
         try {
             //noinspection unchecked
@@ -0,0 +1,134 @@
+package gofabian.r2dbc.jooq;
+
+import org.jooq.JSON;
+import org.jooq.JSONB;
+import org.jooq.Record;
+import org.springframework.dao.DataRetrievalFailureException;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.temporal.Temporal;
+import java.util.function.ToLongFunction;
+
+/**
+ * Approximate memory limit for the records fetched by a single query. The size of each record is estimated from its
+ * values. If the budget is exceeded the query either fails or its result is truncated, the remaining rows are not
+ * fetched.
+ * <p>
+ * Set a default budget for all fetches:
+ * <pre>
+ *     dslContext.configuration().data("memoryBudget", MemoryBudget.failAfter(64 * 1024 * 1024));
+ * </pre>
+ */
+public final class MemoryBudget {
+
+    static final String DATA_KEY = "memoryBudget";
+
+    private final long maxBytes;
+    private final boolean truncate;
+
+    private MemoryBudget(long maxBytes, boolean truncate) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        this.truncate = truncate;
+    }
+
+    /**
+     * Fail with {@link DataRetrievalFailureException} when the records exceed the budget.
+     */
+    public static MemoryBudget failAfter(long maxBytes) {
+        return new MemoryBudget(maxBytes, false);
+    }
+
+    /**
+     * Complete without the remaining records when the records exceed the budget.
+     */
+    public static MemoryBudget truncateAfter(long maxBytes) {
+        return new MemoryBudget(maxBytes, true);
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public boolean isTruncate() {
+        return truncate;
+    }
+
+    <R extends Record> Flux<R> apply(Flux<R> records) {
+        return apply(records, MemoryBudget::estimateSize);
+    }
+
+    /**
+     * @param estimator estimates the heap size of an element
+     */
+    <T> Flux<T> apply(Flux<T> records, ToLongFunction<T> estimator) {
+        return Flux.defer(() -> {
+            long[] usedBytes = {0};
+            return records.handle((record, sink) -> {
+                usedBytes[0] += estimator.applyAsLong(record);
+                if (usedBytes[0] <= maxBytes) {
+                    sink.next(record);
+                } else if (truncate) {
+                    sink.complete();
+                } else {
+                    sink.error(new DataRetrievalFailureException("Memory budget of " + maxBytes +
+                            " bytes exceeded"));
+                }
+            });
+        });
+    }
+
+    /**
+     * Estimate the heap size of a record: object headers, value arrays and values.
+     */
+    static long estimateSize(Record record) {
+        int size = record.size();
+        // record, values and original values
+        long bytes = 48 + 2 * (16 + 8L * size);
+        for (int i = 0; i < size; i++) {
+            bytes += estimateSize(record.get(i));
+        }
+        return bytes;
+    }
+
+    static long estimateSize(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return 40 + 2L * ((String) value).length();
+        }
+        if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        }
+        if (value instanceof BigDecimal || value instanceof BigInteger) {
+            return 64;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return 24;
+        }
+        if (value instanceof Temporal) {
+            return 48;
+        }
+        if (value instanceof JSON) {
+            return 16 + estimateSize(((JSON) value).data());
+        }
+        if (value instanceof JSONB) {
+            return 16 + estimateSize(((JSONB) value).data());
+        }
+        if (value instanceof Object[]) {
+            Object[] array = (Object[]) value;
+            long bytes = 16 + 8L * array.length;
+            for (Object element : array) {
+                bytes += estimateSize(element);
+            }
+            return bytes;
+        }
+        return 32;
+    }
+
+}
@@ -0,0 +1,42 @@
+package gofabian.r2dbc.jooq;
+
+import org.jooq.SQLDialect;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Java types that the R2DBC drivers can decode natively via {@link io.r2dbc.spi.Row#get(int, Class)}, so the
+ * {@link gofabian.r2dbc.jooq.converter.Converter} pipeline can be skipped. The drivers of PostgreSQL and MySQL decode
+ * these types from all compatible column types, e. g. Integer from BIGINT columns.
+ * <p>
+ * The H2 driver decodes each column as its own Java type only, e. g. no Integer from BIGINT columns like
+ * <code>count(*)</code>. Decoding natively would not save anything, so it is not used for H2.
+ */
+class NativeDecoding {
+
+    private static final Map<SQLDialect, Set<Class<?>>> NATIVE_TYPES = new EnumMap<>(SQLDialect.class);
+
+    static {
+        List<Class<?>> common = Arrays.asList(String.class, Boolean.class, Short.class, Integer.class, Long.class,
+                Float.class, Double.class, BigDecimal.class, LocalDate.class, LocalTime.class, LocalDateTime.class);
+
+        Set<Class<?>> mysql = new HashSet<>(common);
+        mysql.addAll(Arrays.asList(Byte.class, byte[].class));
+        NATIVE_TYPES.put(SQLDialect.MYSQL, mysql);
+
+        Set<Class<?>> postgres = new HashSet<>(common);
+        postgres.addAll(Arrays.asList(byte[].class, UUID.class, OffsetDateTime.class));
+        NATIVE_TYPES.put(SQLDialect.POSTGRES, postgres);
+    }
+
+    static boolean canDecode(SQLDialect family, Class<?> type) {
+        Set<Class<?>> types = NATIVE_TYPES.get(family);
+        return types != null && types.contains(type);
+    }
+
+}
@@ -0,0 +1,25 @@
+package gofabian.r2dbc.jooq;
+
+import org.jooq.Field;
+import org.jooq.Select;
+
+/**
+ * How {@link ReactiveQueryExecutor#fetchParallel(Select, Field, int, Partitioning, boolean)} splits a query into
+ * disjoint partitions.
+ */
+public enum Partitioning {
+
+    /**
+     * Split the range between the minimum and the maximum of the partition field into partitions of equal width, e. g.
+     * <code>WHERE partitionField &gt;= ? AND partitionField &lt; ?</code>. The minimum and maximum are fetched by one
+     * query before. An index of the partition field is used, so each partition reads its range only.
+     */
+    KEY_RANGE,
+
+    /**
+     * Split by remainder, i. e. <code>WHERE MOD(ABS(partitionField), partitions) = ?</code>. Each partition reads all
+     * rows of the query, but the partitions have the same size for keys with gaps.
+     */
+    MODULO
+
+}
@@ -0,0 +1,327 @@
+package gofabian.r2dbc.jooq;
+
+import gofabian.r2dbc.jooq.converter.Converter;
+import io.r2dbc.spi.Row;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.exception.MappingException;
+import org.jooq.tools.Convert;
+
+import java.beans.ConstructorProperties;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+
+/**
+ * Converts R2DBC rows to POJOs or Java records without an intermediate JOOQ record.
+ * <p>
+ * Supported target types:
+ * - Java records: canonical constructor, components are matched by name.
+ * - Classes with a no-arg constructor: setters (<code>setXxx</code>) or non-final fields are matched by name.
+ * - Classes with a constructor annotated with {@link ConstructorProperties}: arguments are matched by name.
+ * - Classes with one constructor whose parameter count equals the number of selected fields: arguments by position.
+ * <p>
+ * Names are matched case-insensitively and without underscores, e. g. column <code>first_name</code> matches property
+ * <code>firstName</code>. The mappers are cached per target type and selected fields. The cache belongs to the target
+ * type, see {@link ClassValue}, so it does not keep classes of other class loaders from being unloaded. If a target type
+ * has too many mappers, its mappers are cleared.
+ */
+class PojoMapper<E> {
+
+    private static final int MAX_MAPPERS_PER_TYPE = 100;
+    private static final ClassValue<ConcurrentMap<List<Object>, PojoMapper<?>>> MAPPERS =
+            new ClassValue<ConcurrentMap<List<Object>, PojoMapper<?>>>() {
+                @Override
+                protected ConcurrentMap<List<Object>, PojoMapper<?>> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private final Class<E> type;
+    private final ColumnReader columnReader;
+
+    // constructor arguments, by column index or -1 for default value
+    private final MethodHandle constructor;
+    private final int[] argumentColumns;
+    private final Class<?>[] argumentTypes;
+
+    // setters by column index, null if column is not mapped
+    private final MethodHandle[] setters;
+    private final Class<?>[] setterTypes;
+
+    private PojoMapper(Class<E> type, ColumnReader columnReader, MethodHandle constructor, int[] argumentColumns,
+                       Class<?>[] argumentTypes, MethodHandle[] setters, Class<?>[] setterTypes) {
+        this.type = type;
+        this.columnReader = columnReader;
+        this.constructor = constructor;
+        this.argumentColumns = argumentColumns;
+        this.argumentTypes = argumentTypes;
+        this.setters = setters;
+        this.setterTypes = setterTypes;
+    }
+
+    static <E> PojoMapper<E> get(DSLContext dslContext, Converter converter, List<Field<?>> fields, Class<E> type) {
+        List<Object> key = new ArrayList<>(2 + 2 * fields.size());
+        key.add(converter);
+        key.add(dslContext.family());
+        for (Field<?> field : fields) {
+            key.add(field.getName());
+            key.add(field.getType());
+        }
+
+        ConcurrentMap<List<Object>, PojoMapper<?>> mappers = MAPPERS.get(type);
+        PojoMapper<?> mapper = mappers.get(key);
+        if (mapper == null) {
+            mapper = create(dslContext, converter, fields.toArray(new Field<?>[0]), type);
+            if (mappers.size() >= MAX_MAPPERS_PER_TYPE) {
+                mappers.clear();
+            }
+            mappers.putIfAbsent(key, mapper);
+        }
+        //noinspection unchecked
+        return (PojoMapper<E>) mapper;
+    }
+
+    private static <E> PojoMapper<E> create(DSLContext dslContext, Converter converter, Field<?>[] fields,
+                                            Class<E> type) {
+        ColumnReader columnReader = new ColumnReader(dslContext.family(), converter, fields);
+        Map<String, Integer> columnIndexes = new HashMap<>();
+        for (int i = fields.length - 1; i >= 0; i--) {
+            columnIndexes.put(normalize(fields[i].getName()), i);
+        }
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            // Java record: canonical constructor
+            String[] componentNames = getRecordComponentNames(type);
+            if (componentNames != null) {
+                Constructor<E> canonical = type.getDeclaredConstructor(getRecordComponentTypes(type));
+                int[] argumentColumns = new int[componentNames.length];
+                for (int i = 0; i < componentNames.length; i++) {
+                    argumentColumns[i] = columnIndexes.getOrDefault(normalize(componentNames[i]), -1);
+                }
+                return constructorMapper(type, columnReader, lookup, canonical, argumentColumns);
+            }
+
+            // setters and fields
+            Constructor<E> noArgConstructor = findNoArgConstructor(type);
+            if (noArgConstructor != null) {
+                MethodHandle[] setters = new MethodHandle[fields.length];
+                Class<?>[] setterTypes = new Class<?>[fields.length];
+                for (int i = 0; i < fields.length; i++) {
+                    String name = normalize(fields[i].getName());
+                    Method setter = findSetter(type, name);
+                    if (setter != null) {
+                        setter.setAccessible(true);
+                        setters[i] = lookup.unreflect(setter);
+                        setterTypes[i] = setter.getParameterTypes()[0];
+                        continue;
+                    }
+                    java.lang.reflect.Field member = findField(type, name);
+                    if (member != null) {
+                        member.setAccessible(true);
+                        setters[i] = lookup.unreflectSetter(member);
+                        setterTypes[i] = member.getType();
+                    }
+                }
+                noArgConstructor.setAccessible(true);
+                return new PojoMapper<>(type, columnReader, lookup.unreflectConstructor(noArgConstructor),
+                        null, null, setters, setterTypes);
+            }
+
+            // constructor arguments by name
+            Constructor<E> annotatedConstructor = findConstructor(type, c ->
+                    c.isAnnotationPresent(ConstructorProperties.class));
+            if (annotatedConstructor != null) {
+                String[] names = annotatedConstructor.getAnnotation(ConstructorProperties.class).value();
+                int[] argumentColumns = new int[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    argumentColumns[i] = columnIndexes.getOrDefault(normalize(names[i]), -1);
+                }
+                return constructorMapper(type, columnReader, lookup, annotatedConstructor, argumentColumns);
+            }
+
+            // constructor arguments by position
+            Constructor<E> constructor = findConstructor(type, c -> c.getParameterCount() == fields.length);
+            if (constructor != null) {
+                int[] argumentColumns = new int[fields.length];
+                for (int i = 0; i < fields.length; i++) {
+                    argumentColumns[i] = i;
+                }
+                return constructorMapper(type, columnReader, lookup, constructor, argumentColumns);
+            }
+        } catch (ReflectiveOperationException | SecurityException e) {
+            throw new MappingException("Cannot map rows to " + type, e);
+        }
+
+        throw new MappingException("No suitable constructor found for " + type);
+    }
+
+    /**
+     * @return the only constructor that matches or <code>null</code> if none matches
+     * @throws MappingException if several constructors match
+     */
+    private static <E> Constructor<E> findConstructor(Class<E> type, Predicate<Constructor<?>> predicate) {
+        Constructor<?> found = null;
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            if (!constructor.isSynthetic() && predicate.test(constructor)) {
+                if (found != null) {
+                    throw new MappingException("Ambiguous constructors found for " + type + ": " + found + ", " +
+                            constructor);
+                }
+                found = constructor;
+            }
+        }
+        //noinspection unchecked
+        return (Constructor<E>) found;
+    }
+
+    private static <E> PojoMapper<E> constructorMapper(Class<E> type, ColumnReader columnReader,
+                                                       MethodHandles.Lookup lookup, Constructor<E> constructor,
+                                                       int[] argumentColumns) throws IllegalAccessException {
+        constructor.setAccessible(true);
+        MethodHandle handle = lookup.unreflectConstructor(constructor)
+                .asSpreader(Object[].class, constructor.getParameterCount());
+        return new PojoMapper<>(type, columnReader, handle, argumentColumns, constructor.getParameterTypes(),
+                null, null);
+    }
+
+    private static <E> Constructor<E> findNoArgConstructor(Class<E> type) {
+        try {
+            return type.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Method findSetter(Class<?> type, String normalizedName) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Method method : c.getDeclaredMethods()) {
+                if (method.getParameterCount() == 1 && !Modifier.isStatic(method.getModifiers()) &&
+                        method.getName().startsWith("set") &&
+                        normalize(method.getName().substring(3)).equals(normalizedName)) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static java.lang.reflect.Field findField(Class<?> type, String normalizedName) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (java.lang.reflect.Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers) &&
+                        normalize(field.getName()).equals(normalizedName)) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Java records are available since Java 16, access via reflection.
+     */
+    private static String[] getRecordComponentNames(Class<?> type) throws ReflectiveOperationException {
+        Object[] components = getRecordComponents(type);
+        if (components == null) {
+            return null;
+        }
+        String[] names = new String[components.length];
+        for (int i = 0; i < components.length; i++) {
+            names[i] = (String) components[i].getClass().getMethod("getName").invoke(components[i]);
+        }
+        return names;
+    }
+
+    private static Class<?>[] getRecordComponentTypes(Class<?> type) throws ReflectiveOperationException {
+        Object[] components = getRecordComponents(type);
+        Class<?>[] types = new Class<?>[components.length];
+        for (int i = 0; i < components.length; i++) {
+            types[i] = (Class<?>) components[i].getClass().getMethod("getType").invoke(components[i]);
+        }
+        return types;
+    }
+
+    private static Object[] getRecordComponents(Class<?> type) throws ReflectiveOperationException {
+        Method isRecord;
+        try {
+            isRecord = Class.class.getMethod("isRecord");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        if (!((Boolean) isRecord.invoke(type))) {
+            return null;
+        }
+        return (Object[]) Class.class.getMethod("getRecordComponents").invoke(type);
+    }
+
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    E map(Row row) {
+        return map(readValues(row));
+    }
+
+    /**
+     * Read values in fields order, e. g. to share them via result cache, see {@link RowMapper#readValues(Row)}.
+     */
+    Object[] readValues(Row row) {
+        return columnReader.readValues(row);
+    }
+
+    E map(Object[] values) {
+        try {
+            if (setters == null) {
+                return mapConstructorArguments(values);
+            }
+            return mapSetters(values);
+        } catch (MappingException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new MappingException("Cannot map row to " + type, e);
+        }
+    }
+
+    private E mapConstructorArguments(Object[] values) throws Throwable {
+        Object[] arguments = new Object[argumentColumns.length];
+        for (int i = 0; i < argumentColumns.length; i++) {
+            int column = argumentColumns[i];
+            Object value = column < 0 ? null : values[column];
+            arguments[i] = convert(value, argumentTypes[i]);
+        }
+        //noinspection unchecked
+        return (E) constructor.invoke(arguments);
+    }
+
+    private E mapSetters(Object[] values) throws Throwable {
+        //noinspection unchecked
+        E pojo = (E) constructor.invoke();
+        for (int i = 0; i < setters.length; i++) {
+            if (setters[i] != null) {
+                Object value = convert(values[i], setterTypes[i]);
+                setters[i].invoke(pojo, value);
+            }
+        }
+        return pojo;
+    }
+
+    private static Object convert(Object value, Class<?> type) {
+        if (value == null) {
+            // default value of primitive types
+            return type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null;
+        }
+        if (type.isInstance(value)) {
+            return value;
+        }
+        return Convert.convert(value, type);
+    }
+
+}
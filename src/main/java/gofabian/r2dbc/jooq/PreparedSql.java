@@ -0,0 +1,59 @@
+package gofabian.r2dbc.jooq;
+
+import gofabian.r2dbc.jooq.converter.Converter;
+import org.jooq.Configuration;
+import org.jooq.Param;
+import org.jooq.Query;
+import org.jooq.conf.ParamType;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * SQL string and binding plan of a prepared query, see {@link ReactivePreparedQuery} and
+ * {@link ReactivePreparedSelect}.
+ */
+class PreparedSql {
+
+    private final String sql;
+    private final Param<?>[] params;
+    private final BindingPlan bindingPlan;
+    private final int fetchSize;
+
+    PreparedSql(Query query, String sql, Converter converter) {
+        this.sql = Objects.requireNonNull(sql);
+        this.params = query.getParams().values().stream()
+                .filter(p -> p.getParamType() != ParamType.INLINED)
+                .toArray(Param<?>[]::new);
+        this.bindingPlan = BindingPlan.create(Arrays.asList(params), Objects.requireNonNull(converter));
+        Configuration configuration = query.configuration();
+        this.fetchSize = ReactiveQueryExecutor.getFetchSize(query,
+                configuration != null ? configuration.settings() : null);
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    int getParamCount() {
+        return params.length;
+    }
+
+    void checkBindValues(Object[] bindValues) {
+        if (bindValues.length != params.length) {
+            throw new IllegalArgumentException("Expected " + params.length + " bind values but got " +
+                    bindValues.length);
+        }
+    }
+
+    DatabaseClient.GenericExecuteSpec createR2dbcExecuteSpec(DatabaseClient databaseClient, Object[] bindValues) {
+        DatabaseClient.GenericExecuteSpec executeSpec = databaseClient.sql(sql);
+        for (int i = 0; i < params.length; i++) {
+            Object bindValue = params[i].getDataType().convert(bindValues[i]);
+            executeSpec = bindingPlan.bind(executeSpec, i, bindValue);
+        }
+        return ReactiveQueryExecutor.applyFetchSize(executeSpec, fetchSize);
+    }
+
+}
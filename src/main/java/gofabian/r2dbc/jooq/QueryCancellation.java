@@ -0,0 +1,193 @@
+package gofabian.r2dbc.jooq;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Wrapped;
+import org.jooq.SQLDialect;
+import org.reactivestreams.Publisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.r2dbc.connection.ConnectionFactoryUtils;
+import org.springframework.r2dbc.connection.SingleConnectionFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.binding.BindMarkersFactoryResolver;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Cancels statements server-side when the subscriber cancels, e. g. on dispose or timeout. Closing the R2DBC
+ * subscription alone does not guarantee that the database stops working on the statement.
+ * <p>
+ * The statement is executed on a pinned connection whose session id is known. On cancel the session is cancelled via
+ * a separate connection (PostgreSQL <code>pg_cancel_backend</code>, MySQL <code>KILL QUERY</code>, H2
+ * <code>CANCEL_SESSION</code>) before the pinned connection is released. Other dialects are not cancelled
+ * server-side.
+ * <p>
+ * Each cancel opens and closes a physical connection outside of any pool, i. e. connection setup and authentication per
+ * cancel. At most {@value #MAX_CANCEL_CONNECTIONS} cancel connections are open at the same time, so many cancels at
+ * once, e. g. timeouts of an overloaded database, do not flood the database with new connections. Cancels beyond that
+ * limit are skipped: the statement keeps running on the server until it completes, only its connection is released.
+ */
+class QueryCancellation {
+
+    static final int MAX_CANCEL_CONNECTIONS = 4;
+
+    static final Semaphore cancelConnections = new Semaphore(MAX_CANCEL_CONNECTIONS);
+
+    /**
+     * Session ids by physical connection
+     */
+    private static final Map<Connection, Long> sessionIds = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private QueryCancellation() {
+    }
+
+    /**
+     * @param execution executes the statement with the given database client
+     */
+    static <T> Flux<T> execute(SQLDialect dialect, DatabaseClient databaseClient,
+                               Function<DatabaseClient, ? extends Publisher<T>> execution) {
+        String sessionIdSql = getSessionIdSql(dialect);
+        if (sessionIdSql == null) {
+            return Flux.from(execution.apply(databaseClient));
+        }
+
+        ConnectionFactory connectionFactory = databaseClient.getConnectionFactory();
+        return Flux.defer(() -> {
+            ExecutionState state = new ExecutionState();
+            return Flux.usingWhen(
+                    ConnectionFactoryUtils.getConnection(connectionFactory),
+                    connection -> getSessionId(connection, sessionIdSql)
+                            .flatMapMany(sessionId -> Flux.from(execution.apply(pin(connection, connectionFactory)))
+                                    .doOnSubscribe(subscription -> state.started = true)
+                                    .doOnTerminate(() -> state.terminated = true)),
+                    connection -> ConnectionFactoryUtils.releaseConnection(connection, connectionFactory),
+                    (connection, error) -> ConnectionFactoryUtils.releaseConnection(connection, connectionFactory),
+                    connection -> (state.isRunning()
+                            ? cancel(dialect, connectionFactory, connection)
+                            : Mono.<Void>empty())
+                            .onErrorResume(e -> Mono.empty())
+                            .then(ConnectionFactoryUtils.releaseConnection(connection, connectionFactory)));
+        });
+    }
+
+    /**
+     * Whether the statement may still be running on the server. A cancel connection is only opened for running
+     * statements, not for statements that have not been started or have already completed or failed.
+     */
+    private static class ExecutionState {
+        volatile boolean started;
+        volatile boolean terminated;
+
+        boolean isRunning() {
+            return started && !terminated;
+        }
+    }
+
+    /**
+     * Fail with {@link QueryTimeoutException} if the flux does not terminate within the timeout. The upstream is
+     * cancelled on timeout.
+     */
+    static <T> Flux<T> timeout(Flux<T> flux, int timeoutSeconds) {
+        return Flux.defer(() -> {
+            long deadline = System.nanoTime() + Duration.ofSeconds(timeoutSeconds).toNanos();
+            Mono<Long> remaining = Mono.defer(() -> Mono.delay(Duration.ofNanos(
+                    Math.max(0, deadline - System.nanoTime()))));
+            return flux.timeout(remaining, item -> remaining)
+                    .onErrorMap(TimeoutException.class, e -> new QueryTimeoutException(
+                            "Query timeout of " + timeoutSeconds + " seconds exceeded", e));
+        });
+    }
+
+    private static String getSessionIdSql(SQLDialect dialect) {
+        switch (dialect.family()) {
+            case POSTGRES:
+                return "SELECT pg_backend_pid()";
+            case MYSQL:
+                return "SELECT CONNECTION_ID()";
+            case H2:
+                return "SELECT SESSION_ID()";
+            default:
+                return null;
+        }
+    }
+
+    private static String getCancelSql(SQLDialect dialect, long sessionId) {
+        switch (dialect.family()) {
+            case POSTGRES:
+                return "SELECT pg_cancel_backend(" + sessionId + ")";
+            case MYSQL:
+                return "KILL QUERY " + sessionId;
+            case H2:
+                return "CALL CANCEL_SESSION(" + sessionId + ")";
+            default:
+                throw new IllegalArgumentException("Unsupported dialect: " + dialect);
+        }
+    }
+
+    private static Mono<Long> getSessionId(Connection connection, String sessionIdSql) {
+        Connection target = ConnectionFactoryUtils.getTargetConnection(connection);
+        Long sessionId = sessionIds.get(target);
+        if (sessionId != null) {
+            return Mono.just(sessionId);
+        }
+        return Flux.from(connection.createStatement(sessionIdSql).execute())
+                .concatMap(result -> result.map((row, metadata) -> ((Number) row.get(0)).longValue()))
+                .next()
+                .doOnNext(id -> sessionIds.put(target, id));
+    }
+
+    /**
+     * Cancel the statement running in the session of the given connection via a new connection. A transaction-bound
+     * connection is busy with the statement and cannot be used. The new connection is not taken from a connection pool
+     * as the pool may be exhausted by the statements to cancel.
+     */
+    private static Mono<Void> cancel(SQLDialect dialect, ConnectionFactory connectionFactory, Connection connection) {
+        Long sessionId = sessionIds.get(ConnectionFactoryUtils.getTargetConnection(connection));
+        if (sessionId == null) {
+            // statement has not been started
+            return Mono.empty();
+        }
+        String cancelSql = getCancelSql(dialect, sessionId);
+        return Mono.defer(() -> {
+            if (!cancelConnections.tryAcquire()) {
+                // too many cancels at once
+                return Mono.empty();
+            }
+            return Mono.usingWhen(
+                    unwrap(connectionFactory).create(),
+                    cancelConnection -> Flux.from(cancelConnection.createStatement(cancelSql).execute())
+                            .concatMap(Result::getRowsUpdated)
+                            .then(),
+                    Connection::close)
+                    .doFinally(signal -> cancelConnections.release());
+        });
+    }
+
+    private static ConnectionFactory unwrap(ConnectionFactory connectionFactory) {
+        ConnectionFactory unwrapped = connectionFactory;
+        while (unwrapped instanceof Wrapped && ((Wrapped<?>) unwrapped).unwrap() instanceof ConnectionFactory) {
+            unwrapped = (ConnectionFactory) ((Wrapped<?>) unwrapped).unwrap();
+        }
+        return unwrapped;
+    }
+
+    /**
+     * Database client that executes all statements on the given connection.
+     */
+    static DatabaseClient pin(Connection connection, ConnectionFactory connectionFactory) {
+        return DatabaseClient.builder()
+                .connectionFactory(new SingleConnectionFactory(connection, connectionFactory.getMetadata(), true))
+                .bindMarkers(BindMarkersFactoryResolver.resolve(connectionFactory))
+                .build();
+    }
+
+}
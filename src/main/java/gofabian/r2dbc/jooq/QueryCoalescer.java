@@ -0,0 +1,146 @@
+package gofabian.r2dbc.jooq;
+
+import org.jooq.Select;
+import reactor.core.publisher.Flux;
+import reactor.util.function.Tuple2;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shares the execution of identical selects that run at the same time, see {@link ReactiveQueryExecutor#fetch(Select)}
+ * and {@link ReactiveQueryExecutor#fetchOne(Select)}. Selects are identical if their SQL string and bind values are
+ * equal.
+ * <p>
+ * A subscriber that joins an execution in flight receives all rows of that execution from the beginning, so the first
+ * rows are buffered up to a maximum number. Once an execution has emitted more rows, later selects are not joined
+ * anymore but start a new execution, so large results are never buffered as a whole. The execution is cancelled when
+ * all of its subscribers have cancelled.
+ * <p>
+ * Selects inside of a transaction are not shared. Coalescing is disabled by default. Enable it like that:
+ * <pre>
+ *     dslContext.configuration().data("queryCoalescer", new QueryCoalescer());
+ * </pre>
+ */
+public class QueryCoalescer {
+
+    static final String DATA_KEY = "queryCoalescer";
+
+    private final int maximumBufferedRows;
+    private final Map<ResultCache.Key, Flux<Tuple2<Long, Object[]>>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder executionCount = new LongAdder();
+    private final LongAdder sharedCount = new LongAdder();
+
+    public QueryCoalescer() {
+        this(1000);
+    }
+
+    /**
+     * @param maximumBufferedRows number of rows per execution that are buffered for selects that join late
+     */
+    public QueryCoalescer(int maximumBufferedRows) {
+        if (maximumBufferedRows <= 0) {
+            throw new IllegalArgumentException("maximumBufferedRows must be positive: " + maximumBufferedRows);
+        }
+        this.maximumBufferedRows = maximumBufferedRows;
+    }
+
+    /**
+     * Join the execution in flight of the key or start a new execution.
+     *
+     * @param key  identifies the result, e. g. SQL string and bind values
+     * @param rows fetches the rows as values
+     */
+    Flux<Object[]> execute(ResultCache.Key key, Flux<Object[]> rows) {
+        return Flux.defer(() -> {
+            boolean[] created = {false};
+            Flux<Tuple2<Long, Object[]>> shared = inFlight.computeIfAbsent(key, k -> {
+                created[0] = true;
+                return share(k, rows);
+            });
+            if (created[0]) {
+                executionCount.increment();
+            } else {
+                sharedCount.increment();
+            }
+            boolean[] first = {true};
+            return shared
+                    .<Object[]>handle((row, sink) -> {
+                        // rows that are not buffered anymore are missed, e. g. when joining while the limit is hit
+                        if (first[0] && row.getT1() > 0) {
+                            sink.error(RowsMissed.INSTANCE);
+                            return;
+                        }
+                        first[0] = false;
+                        sink.next(row.getT2());
+                    })
+                    .onErrorResume(e -> e == RowsMissed.INSTANCE, e -> {
+                        sharedCount.decrement();
+                        executionCount.increment();
+                        return rows;
+                    });
+        });
+    }
+
+    private Flux<Tuple2<Long, Object[]>> share(ResultCache.Key key, Flux<Object[]> rows) {
+        AtomicReference<Flux<Tuple2<Long, Object[]>>> shared = new AtomicReference<>();
+        // later subscribers start a new execution once this one has terminated, was cancelled or has filled the buffer
+        shared.set(rows
+                .index()
+                .doOnNext(row -> {
+                    if (row.getT1() + 1 == maximumBufferedRows) {
+                        inFlight.remove(key, shared.get());
+                    }
+                })
+                .doFinally(signal -> inFlight.remove(key, shared.get()))
+                .replay(maximumBufferedRows)
+                .refCount());
+        return shared.get();
+    }
+
+    public int getMaximumBufferedRows() {
+        return maximumBufferedRows;
+    }
+
+    /**
+     * @return number of executions in flight
+     */
+    public int size() {
+        return inFlight.size();
+    }
+
+    /**
+     * @return number of selects that started an execution
+     */
+    public long getExecutionCount() {
+        return executionCount.sum();
+    }
+
+    /**
+     * @return number of selects that joined an execution in flight
+     */
+    public long getSharedCount() {
+        return sharedCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCoalescer{" +
+                "size=" + size() +
+                ", executionCount=" + getExecutionCount() +
+                ", sharedCount=" + getSharedCount() +
+                '}';
+    }
+
+    private static class RowsMissed extends RuntimeException {
+        static final RowsMissed INSTANCE = new RowsMissed();
+
+        RowsMissed() {
+            super("Rows of the shared execution have been missed", null, false, false);
+        }
+    }
+
+}
@@ -0,0 +1,208 @@
+package gofabian.r2dbc.jooq;
+
+import org.jooq.*;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Structural fingerprint of a query: the classes and values of all its query parts except the values of bind
+ * parameters. Queries of the same shape render to the same SQL string, e. g. a query that is built anew on each call
+ * with other bind values.
+ * <p>
+ * The query parts are visited via reflection. Data types and objects of unknown classes are compared by identity, so
+ * at worst equal queries get different shapes. A part that occurs several times is visited once, so the shape also
+ * captures which parts are shared.
+ */
+final class QueryShape {
+
+    private static final Object NULL = new Object();
+    private static final Object REFERENCE = new Object();
+    private static final Object ARRAY = new Object();
+    private static final Object COLLECTION = new Object();
+    private static final Object MAP = new Object();
+
+    private static final ClassValue<java.lang.reflect.Field[]> FIELDS = new ClassValue<java.lang.reflect.Field[]>() {
+        @Override
+        protected java.lang.reflect.Field[] computeValue(Class<?> type) {
+            List<java.lang.reflect.Field> fields = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (java.lang.reflect.Field field : c.getDeclaredFields()) {
+                    if (isStructural(field)) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields.toArray(new java.lang.reflect.Field[0]);
+        }
+    };
+
+    /**
+     * The walker of a thread is reused, so its buffers have grown to the size of the queries already.
+     */
+    private static final ThreadLocal<Walker> WALKER = ThreadLocal.withInitial(Walker::new);
+
+    private final Object[] tokens;
+    private final int hashCode;
+
+    private QueryShape(Object[] tokens) {
+        this.tokens = tokens;
+        this.hashCode = Arrays.hashCode(tokens);
+    }
+
+    /**
+     * @param params receives the bind parameters of the query in visiting order, each parameter once
+     */
+    static QueryShape of(Query query, SQLDialect dialect, List<Param<?>> params) {
+        Walker walker = WALKER.get();
+        if (walker.params != null) {
+            // nested call while walking
+            walker = new Walker();
+        }
+        walker.params = params;
+        try {
+            walker.tokens.add(dialect);
+            walker.visit(query);
+            return new QueryShape(walker.tokens.toArray());
+        } finally {
+            walker.tokens.clear();
+            walker.visited.clear();
+            walker.params = null;
+        }
+    }
+
+    /**
+     * Execution state like the configuration, the timeout or fetched results is not part of the shape.
+     */
+    private static boolean isStructural(java.lang.reflect.Field field) {
+        int modifiers = field.getModifiers();
+        if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+            return false;
+        }
+        Class<?> type = field.getType();
+        return !Configuration.class.isAssignableFrom(type)
+                && !Result.class.isAssignableFrom(type)
+                && !Results.class.isAssignableFrom(type)
+                && !Cursor.class.isAssignableFrom(type)
+                && !type.getName().startsWith("java.sql.");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o == this || o instanceof QueryShape && hashCode == o.hashCode() &&
+                Arrays.equals(tokens, ((QueryShape) o).tokens);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    private static class Walker {
+        final List<Object> tokens = new ArrayList<>();
+        final Map<Object, Integer> visited = new IdentityHashMap<>();
+        List<Param<?>> params;
+
+        void visit(Object value) {
+            if (value == null) {
+                tokens.add(NULL);
+            } else if (value instanceof String || value instanceof Number || value instanceof Boolean
+                    || value instanceof Character || value instanceof Enum || value instanceof Class) {
+                tokens.add(value);
+            } else if (value instanceof DataType) {
+                tokens.add(new Identity(value));
+            } else if (isVisited(value)) {
+                return;
+            } else if (value instanceof Param) {
+                visitParam((Param<?>) value);
+            } else if (value.getClass().isArray()) {
+                int length = Array.getLength(value);
+                tokens.add(ARRAY);
+                tokens.add(length);
+                for (int i = 0; i < length; i++) {
+                    visit(Array.get(value, i));
+                }
+            } else if (value instanceof Collection) {
+                Collection<?> collection = (Collection<?>) value;
+                tokens.add(COLLECTION);
+                tokens.add(collection.size());
+                for (Object element : collection) {
+                    visit(element);
+                }
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                tokens.add(MAP);
+                tokens.add(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    visit(entry.getKey());
+                    visit(entry.getValue());
+                }
+            } else if (value instanceof QueryPart || value.getClass().getName().startsWith("org.jooq.")) {
+                tokens.add(value.getClass());
+                for (java.lang.reflect.Field field : FIELDS.get(value.getClass())) {
+                    visit(getField(value, field));
+                }
+            } else {
+                tokens.add(new Identity(value));
+            }
+        }
+
+        /**
+         * @return whether the value has been visited before, then a reference to the first visit is added
+         */
+        private boolean isVisited(Object value) {
+            Integer index = visited.putIfAbsent(value, visited.size());
+            if (index == null) {
+                return false;
+            }
+            tokens.add(REFERENCE);
+            tokens.add(index);
+            return true;
+        }
+
+        private void visitParam(Param<?> param) {
+            tokens.add(param.getClass());
+            tokens.add(param.getParamName());
+            tokens.add(new Identity(param.getDataType()));
+            tokens.add(param.isInline());
+            if (param.isInline()) {
+                // inlined values are part of the SQL string
+                visit(param.getValue());
+            } else {
+                params.add(param);
+            }
+        }
+
+        private static Object getField(Object object, java.lang.reflect.Field field) {
+            try {
+                return field.get(object);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("Unsupported JOOQ version", e);
+            }
+        }
+    }
+
+    /**
+     * Token that is equal to tokens of the same instance only.
+     */
+    private static class Identity {
+        private final Object value;
+
+        Identity(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Identity && ((Identity) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(value);
+        }
+    }
+
+}
@@ -7,6 +7,7 @@ import io.r2dbc.spi.ConnectionFactory;
 import org.jooq.DSLContext;
 import org.jooq.SQLDialect;
 import org.jooq.impl.DSL;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.r2dbc.dialect.*;
@@ -20,13 +21,18 @@ import java.util.List;
 @Configuration
 public class R2dbcJooqAutoConfiguration {
 
+    /**
+     * @param readReplicas optional read replicas for selects, see {@link ReadReplicas}
+     */
     @Bean
-    public DSLContext dslContext(DatabaseClient databaseClient, ConnectionFactory connectionFactory) {
+    public DSLContext dslContext(DatabaseClient databaseClient, ConnectionFactory connectionFactory,
+                                 ObjectProvider<ReadReplicas> readReplicas) {
         R2dbcDialect r2dbcDialect = DialectResolver.getDialect(connectionFactory);
         SQLDialect jooqDialect = translateToJooqDialect(r2dbcDialect);
         DSLContext dslContext = DSL.using(jooqDialect);
         dslContext.configuration().data("databaseClient", databaseClient);
         dslContext.configuration().data("converter", getConverter(jooqDialect));
+        readReplicas.ifAvailable(replicas -> dslContext.configuration().data(ReadReplicas.DATA_KEY, replicas));
         return dslContext;
     }
 
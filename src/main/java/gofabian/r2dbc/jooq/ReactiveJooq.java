@@ -1,8 +1,16 @@
 package gofabian.r2dbc.jooq;
 
 import org.jooq.*;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
 
 import static org.jooq.SQLDialect.H2;
 import static org.jooq.SQLDialect.POSTGRES;
@@ -30,6 +38,43 @@ public class ReactiveJooq {
 
     }
 
+    @Support
+    public static Mono<Integer> batchInsert(Collection<? extends TableRecord<?>> records) {
+        if (records.isEmpty()) {
+            return Mono.just(0);
+        }
+        return ReactiveRecordExecutor.from(records.iterator().next()).batchInsert(records);
+    }
+
+    /**
+     * Insert a stream of records in batches of at most 1000 records, waiting at most 100 ms for a batch to fill.
+     */
+    @Support
+    public static Flux<Integer> insertAll(Publisher<? extends TableRecord<?>> records) {
+        return insertAll(records, 1000, Duration.ofMillis(100));
+    }
+
+    /**
+     * Insert a stream of records like {@link ReactiveRecordExecutor#insertAll(Publisher, int, Duration)} does with
+     * the configuration of the first record.
+     */
+    @Support
+    public static Flux<Integer> insertAll(Publisher<? extends TableRecord<?>> records, int maxSize,
+                                          Duration maxLatency) {
+        StreamingInsert.checkArguments(maxSize, maxLatency);
+        return Flux.<TableRecord<?>>from(records).switchOnFirst((first, flux) -> first.hasValue()
+                ? ReactiveRecordExecutor.from(first.get()).insertAll(flux, maxSize, maxLatency)
+                : flux.thenMany(Flux.empty()));
+    }
+
+    @Support
+    public static Mono<Integer> batchStore(Collection<? extends UpdatableRecord<?>> records) {
+        if (records.isEmpty()) {
+            return Mono.just(0);
+        }
+        return ReactiveRecordExecutor.from(records.iterator().next()).batchStore(records);
+    }
+
     @Support
     public static Mono<Integer> update(UpdatableRecord<?> record) {
         return ReactiveRecordExecutor.from(record).update(record);
@@ -45,11 +90,40 @@ public class ReactiveJooq {
         return ReactiveRecordExecutor.from(record).refresh(record);
     }
 
+    /**
+     * Run the work with a new {@link ReactiveUnitOfWork} in the Reactor context and flush it afterwards. The unit of
+     * work can be retrieved via {@link ReactiveUnitOfWork#current()}.
+     */
+    public static <T> Mono<T> withUnitOfWork(DSLContext dslContext,
+                                             Function<ReactiveUnitOfWork, ? extends Mono<T>> work) {
+        return Mono.defer(() -> {
+            ReactiveUnitOfWork unitOfWork = new ReactiveUnitOfWork(dslContext);
+            return work.apply(unitOfWork)
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(result -> unitOfWork.flush().then(Mono.justOrEmpty(result)))
+                    .contextWrite(Context.of(ReactiveUnitOfWork.CONTEXT_KEY, unitOfWork));
+        });
+    }
+
     @Support
     public static Mono<Integer> execute(Query query) {
         return ReactiveQueryExecutor.from(query).execute(query);
     }
 
+    @Support
+    public static Flux<Integer> batch(Collection<? extends Query> queries) {
+        if (queries.isEmpty()) {
+            return Flux.empty();
+        }
+        return ReactiveQueryExecutor.from(queries.iterator().next()).batch(queries);
+    }
+
+    @Support
+    public static Flux<Integer> batch(Query template, Object[]... bindings) {
+        return ReactiveQueryExecutor.from(template).batch(template, bindings);
+    }
+
     @Support
     public static <R extends Record> Flux<R> executeReturning(InsertResultStep<R> insertQuery) {
         return ReactiveQueryExecutor.from(insertQuery).executeReturning(insertQuery);
@@ -75,6 +149,38 @@ public class ReactiveJooq {
         return ReactiveQueryExecutor.from(jooqQuery).fetch(jooqQuery);
     }
 
+    @Support
+    public static <R extends Record> Flux<R> fetch(Select<R> jooqQuery, MemoryBudget memoryBudget) {
+        return ReactiveQueryExecutor.from(jooqQuery).fetch(jooqQuery, memoryBudget);
+    }
+
+    @Support
+    public static <R extends Record> Flux<R> fetchByKeyset(Select<R> jooqQuery, List<? extends Field<?>> orderFields,
+                                                           int pageSize) {
+        return ReactiveQueryExecutor.from(jooqQuery).fetchByKeyset(jooqQuery, orderFields, pageSize);
+    }
+
+    @Support
+    public static <R extends Record> Flux<R> fetchParallel(Select<R> jooqQuery, Field<? extends Number> partitionField,
+                                                           int partitions) {
+        return ReactiveQueryExecutor.from(jooqQuery).fetchParallel(jooqQuery, partitionField, partitions);
+    }
+
+    @Support
+    public static <R extends Record> Flux<R> fetchParallel(Select<R> jooqQuery, Field<? extends Number> partitionField,
+                                                           int partitions, boolean consistentSnapshot) {
+        return ReactiveQueryExecutor.from(jooqQuery)
+                .fetchParallel(jooqQuery, partitionField, partitions, consistentSnapshot);
+    }
+
+    @Support
+    public static <R extends Record> Flux<R> fetchParallel(Select<R> jooqQuery, Field<? extends Number> partitionField,
+                                                           int partitions, Partitioning partitioning,
+                                                           boolean consistentSnapshot) {
+        return ReactiveQueryExecutor.from(jooqQuery)
+                .fetchParallel(jooqQuery, partitionField, partitions, partitioning, consistentSnapshot);
+    }
+
     @Support
     public static <R extends Record> Mono<R> fetchOne(Select<R> jooqQuery) {
         return ReactiveQueryExecutor.from(jooqQuery).fetchOne(jooqQuery);
@@ -85,6 +191,16 @@ public class ReactiveJooq {
         return ReactiveQueryExecutor.from(jooqQuery).fetchAny(jooqQuery);
     }
 
+    @Support
+    public static <E> Flux<E> fetchInto(Select<?> jooqQuery, Class<E> type) {
+        return ReactiveQueryExecutor.from(jooqQuery).fetchInto(jooqQuery, type);
+    }
+
+    @Support
+    public static <E> Mono<E> fetchOneInto(Select<?> jooqQuery, Class<E> type) {
+        return ReactiveQueryExecutor.from(jooqQuery).fetchOneInto(jooqQuery, type);
+    }
+
     @Support
     public static Mono<Boolean> fetchExists(Select<?> jooqQuery) {
         return ReactiveQueryExecutor.from(jooqQuery).fetchExists(jooqQuery);
@@ -95,4 +211,24 @@ public class ReactiveJooq {
         return ReactiveQueryExecutor.from(jooqQuery).fetchCount(jooqQuery);
     }
 
+    @Support
+    public static Mono<Integer> fetchCountEstimate(Select<?> jooqQuery) {
+        return ReactiveQueryExecutor.from(jooqQuery).fetchCountEstimate(jooqQuery);
+    }
+
+    @Support
+    public static Mono<Integer> fetchCountEstimate(Select<?> jooqQuery, int threshold) {
+        return ReactiveQueryExecutor.from(jooqQuery).fetchCountEstimate(jooqQuery, threshold);
+    }
+
+    @Support
+    public static ReactivePreparedQuery prepare(Query jooqQuery) {
+        return ReactiveQueryExecutor.from(jooqQuery).prepare(jooqQuery);
+    }
+
+    @Support
+    public static <R extends Record> ReactivePreparedSelect<R> prepare(Select<R> jooqQuery) {
+        return ReactiveQueryExecutor.from(jooqQuery).prepare(jooqQuery);
+    }
+
 }
@@ -0,0 +1,43 @@
+package gofabian.r2dbc.jooq;
+
+import gofabian.r2dbc.jooq.converter.Converter;
+import org.jooq.Query;
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+
+/**
+ * A query that has been rendered once and can be executed several times with different bind values.
+ * <p>
+ * Create instances via {@link ReactiveJooq#prepare(Query)}. The bind values are given in the order of the query
+ * parameters, see {@link Query#getParams()}. Executions apply the timeout of the query and invalidate cached results
+ * like {@link ReactiveQueryExecutor#execute(Query)}.
+ */
+public class ReactivePreparedQuery {
+
+    private final ReactiveQueryExecutor executor;
+    private final Query query;
+    private final PreparedSql preparedSql;
+
+    ReactivePreparedQuery(ReactiveQueryExecutor executor, Query query, String sql, Converter converter) {
+        this.executor = Objects.requireNonNull(executor);
+        this.query = Objects.requireNonNull(query);
+        this.preparedSql = new PreparedSql(query, sql, converter);
+    }
+
+    public String getSQL() {
+        return preparedSql.getSql();
+    }
+
+    public int getParamCount() {
+        return preparedSql.getParamCount();
+    }
+
+    public Mono<Integer> execute(Object... bindValues) {
+        preparedSql.checkBindValues(bindValues);
+        return executor.executePrepared(query, client -> preparedSql.createR2dbcExecuteSpec(client, bindValues)
+                .fetch()
+                .rowsUpdated());
+    }
+
+}
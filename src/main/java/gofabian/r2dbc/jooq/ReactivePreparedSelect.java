@@ -0,0 +1,64 @@
+package gofabian.r2dbc.jooq;
+
+import gofabian.r2dbc.jooq.converter.Converter;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.Select;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+
+/**
+ * A select query that has been rendered once and can be fetched several times with different bind values.
+ * <p>
+ * Create instances via {@link ReactiveJooq#prepare(Select)}. The bind values are given in the order of the query
+ * parameters, see {@link Select#getParams()}. Fetches are executed like {@link ReactiveQueryExecutor#fetch(Select)}:
+ * on a read replica, with timeout, max rows and memory budget.
+ */
+public class ReactivePreparedSelect<R extends Record> {
+
+    private final ReactiveQueryExecutor executor;
+    private final Select<R> query;
+    private final PreparedSql preparedSql;
+    private final RowMapper<R> rowMapper;
+
+    ReactivePreparedSelect(ReactiveQueryExecutor executor, DSLContext dslContext, Select<R> query, String sql,
+                           Converter converter) {
+        this.executor = Objects.requireNonNull(executor);
+        this.query = Objects.requireNonNull(query);
+        this.preparedSql = new PreparedSql(query, sql, converter);
+        this.rowMapper = new RowConverter(converter).createRowMapper(dslContext, query.getSelect(),
+                query.getRecordType());
+    }
+
+    public String getSQL() {
+        return preparedSql.getSql();
+    }
+
+    public int getParamCount() {
+        return preparedSql.getParamCount();
+    }
+
+    public Flux<R> fetch(Object... bindValues) {
+        preparedSql.checkBindValues(bindValues);
+        return executor.fetchPrepared(query, client -> preparedSql.createR2dbcExecuteSpec(client, bindValues)
+                .map(rowMapper::map)
+                .all());
+    }
+
+    public Mono<R> fetchOne(Object... bindValues) {
+        preparedSql.checkBindValues(bindValues);
+        return executor.fetchOnePrepared(query, client -> preparedSql.createR2dbcExecuteSpec(client, bindValues)
+                .map(rowMapper::map)
+                .one());
+    }
+
+    public Mono<R> fetchAny(Object... bindValues) {
+        preparedSql.checkBindValues(bindValues);
+        return executor.fetchOnePrepared(query, client -> preparedSql.createR2dbcExecuteSpec(client, bindValues)
+                .map(rowMapper::map)
+                .first());
+    }
+
+}
@@ -4,13 +4,29 @@ import gofabian.r2dbc.jooq.converter.Converter;
 import io.r2dbc.spi.Row;
 import org.jooq.*;
 import org.jooq.conf.ParamType;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
+import org.reactivestreams.Publisher;
 import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static org.jooq.SQLDialect.H2;
@@ -18,16 +34,40 @@ import static org.jooq.SQLDialect.POSTGRES;
 
 public class ReactiveQueryExecutor {
 
+    static final String CANCEL_ON_DISPOSE_KEY = "cancelOnDispose";
+    private static final int MYSQL_SELECT_CHUNK_SIZE = 1000;
+    private static final int MYSQL_SELECT_CONCURRENCY = 4;
+    private static final String KEYSET_TABLE_ALIAS = "keyset_page";
+    private static final String PARTITION_TABLE_ALIAS = "partition_scan";
+    private static final Pattern POSTGRES_ROWS_ESTIMATE = Pattern.compile("rows=(\\d+)");
+
     private final DSLContext dslContext;
     private final DatabaseClient databaseClient;
     private final Converter converter;
     private final RowConverter rowConverter;
+    private final SqlCache sqlCache;
+    private final ReadReplicas readReplicas;
 
     public ReactiveQueryExecutor(DSLContext dslContext, DatabaseClient databaseClient, Converter converter) {
+        this(dslContext, databaseClient, converter, null);
+    }
+
+    public ReactiveQueryExecutor(DSLContext dslContext, DatabaseClient databaseClient, Converter converter,
+                                 SqlCache sqlCache) {
+        this(dslContext, databaseClient, converter, sqlCache, null);
+    }
+
+    /**
+     * @param readReplicas replicas for selects or <code>null</code> to execute all statements on the primary database
+     */
+    public ReactiveQueryExecutor(DSLContext dslContext, DatabaseClient databaseClient, Converter converter,
+                                 SqlCache sqlCache, ReadReplicas readReplicas) {
         this.dslContext = Objects.requireNonNull(dslContext);
         this.databaseClient = Objects.requireNonNull(databaseClient);
         this.converter = Objects.requireNonNull(converter);
         this.rowConverter = new RowConverter(converter);
+        this.sqlCache = sqlCache;
+        this.readReplicas = readReplicas;
     }
 
     public static ReactiveQueryExecutor from(Attachable attachable) {
@@ -38,15 +78,70 @@ public class ReactiveQueryExecutor {
         Configuration configuration = dslContext.configuration();
         DatabaseClient databaseClient = (DatabaseClient) configuration.data("databaseClient");
         Converter converter = (Converter) configuration.data("converter");
-        return new ReactiveQueryExecutor(dslContext, databaseClient, converter);
+        SqlCache sqlCache = (SqlCache) configuration.data("sqlCache");
+        ReadReplicas readReplicas = (ReadReplicas) configuration.data(ReadReplicas.DATA_KEY);
+        return new ReactiveQueryExecutor(dslContext, databaseClient, converter, sqlCache, readReplicas);
+    }
+
+    /**
+     * @return executor that executes selects on the primary database, too
+     */
+    ReactiveQueryExecutor onPrimary() {
+        if (readReplicas == null) {
+            return this;
+        }
+        return new ReactiveQueryExecutor(dslContext, databaseClient, converter, sqlCache);
     }
 
 
     @Support
     public Mono<Integer> execute(Query jooqQuery) {
-        return createR2dbcExecuteSpec(jooqQuery)
-                .fetch()
-                .rowsUpdated();
+        SqlCache.Entry cacheEntry = getCacheEntry(jooqQuery);
+        return invalidateResults(Collections.singletonList(jooqQuery),
+                executeCancellable(databaseClient, jooqQuery, client ->
+                        createR2dbcExecuteSpec(client, jooqQuery, cacheEntry)
+                                .fetch()
+                                .rowsUpdated()))
+                .singleOrEmpty();
+    }
+
+    /**
+     * Execute queries in batches. Consecutive queries with the same SQL string are sent to the database in one
+     * statement with a set of bind values per query.
+     *
+     * @return update count per query
+     */
+    @Support
+    public Flux<Integer> batch(Collection<? extends Query> jooqQueries) {
+        return invalidateResults(jooqQueries, Flux.defer(() -> {
+            List<BatchStatement> statements = BatchStatement.create(dslContext, converter, jooqQueries);
+            return executeBatch(statements);
+        }));
+    }
+
+    /**
+     * Execute the template query once per set of bind values in one statement. The bind values are given in the order
+     * of the query parameters, see {@link Query#getParams()}.
+     *
+     * @return update count per set of bind values
+     */
+    @Support
+    public Flux<Integer> batch(Query template, Object[]... bindings) {
+        return invalidateResults(Collections.singletonList(template), Flux.defer(() -> {
+            if (bindings.length == 0) {
+                return Flux.empty();
+            }
+            BatchStatement statement = BatchStatement.create(dslContext, converter, template, bindings);
+            return executeBatch(Collections.singletonList(statement));
+        }));
+    }
+
+    private Flux<Integer> executeBatch(List<BatchStatement> statements) {
+        if (statements.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.inConnectionMany(connection -> Flux.fromIterable(statements)
+                .concatMap(statement -> statement.execute(connection)));
     }
 
     @Support
@@ -73,31 +168,467 @@ public class ReactiveQueryExecutor {
         return executeReturningOne(storeQuery);
     }
 
+    /**
+     * Fetch records with the memory budget of the configuration data "memoryBudget", if any.
+     */
     @Support
     public <R extends Record> Flux<R> fetch(Select<R> jooqQuery) {
-        return createR2dbcExecuteSpec(jooqQuery)
-                .map(row -> convertSelectedRowToRecord(row, jooqQuery))
-                .all();
+        return fetch(jooqQuery, (MemoryBudget) dslContext.configuration().data(MemoryBudget.DATA_KEY));
+    }
+
+    /**
+     * Fetch records within the given memory budget.
+     *
+     * @param memoryBudget budget or <code>null</code> for no budget
+     */
+    @Support
+    public <R extends Record> Flux<R> fetch(Select<R> jooqQuery, MemoryBudget memoryBudget) {
+        SqlCache.Entry cacheEntry = getCacheEntry(jooqQuery);
+        RowMapper<R> rowMapper = getRowMapper(jooqQuery, cacheEntry);
+        ResultCache resultCache = getResultCache();
+        int maxRows = getMaxRows(jooqQuery, dslContext.settings());
+        QueryCoalescer coalescer = getQueryCoalescer();
+        Flux<R> records;
+        if (resultCache == null && coalescer == null) {
+            records = fetchMaxRows(jooqQuery, cacheEntry, rowMapper::map);
+        } else {
+            records = fetchShared(resultCache, coalescer, jooqQuery, cacheEntry, maxRows,
+                    fillExecutor(resultCache).fetchMaxRows(jooqQuery, cacheEntry, rowMapper::readValues))
+                    .map(rowMapper::toRecord);
+        }
+        return memoryBudget != null ? memoryBudget.apply(records) : records;
     }
 
     @Support
     public <R extends Record> Mono<R> fetchOne(Select<R> jooqQuery) {
-        return createR2dbcExecuteSpec(jooqQuery)
-                .map(row -> convertSelectedRowToRecord(row, jooqQuery))
-                .one();
+        SqlCache.Entry cacheEntry = getCacheEntry(jooqQuery);
+        RowMapper<R> rowMapper = getRowMapper(jooqQuery, cacheEntry);
+        ResultCache resultCache = getResultCache();
+        QueryCoalescer coalescer = getQueryCoalescer();
+        if (resultCache == null && coalescer == null) {
+            return executeRead(jooqQuery, client -> createR2dbcExecuteSpec(client, jooqQuery, cacheEntry)
+                    .map(rowMapper::map)
+                    .one())
+                    .singleOrEmpty();
+        }
+        Flux<Object[]> rows = fillExecutor(resultCache).executeRead(jooqQuery, client ->
+                createR2dbcExecuteSpec(client, jooqQuery, cacheEntry)
+                        .map(rowMapper::readValues)
+                        .one());
+        return fetchShared(resultCache, coalescer, jooqQuery, cacheEntry, -1, rows)
+                .map(rowMapper::toRecord)
+                .singleOrEmpty();
+    }
+
+    /**
+     * Fetch rows as values via the result cache and the query coalescer, if any. Inside of a transaction both are
+     * bypassed.
+     *
+     * @param variant distinguishes different results of the same query, e. g. by max rows
+     */
+    private Flux<Object[]> fetchShared(ResultCache resultCache, QueryCoalescer coalescer, Select<?> jooqQuery,
+                                       SqlCache.Entry cacheEntry, int variant, Flux<Object[]> rows) {
+        return isTransactionActive().flatMapMany(transactionActive -> {
+            if (transactionActive) {
+                return rows;
+            }
+            String sql = cacheEntry != null ? cacheEntry.sql : jooqQuery.getSQL(ParamType.NAMED);
+            Object[] bindValues = cacheEntry != null ? cacheEntry.getBindValues() : jooqQuery.getBindValues().toArray();
+            // results of different databases must not be mixed, e. g. of shards
+            ResultCache.Key key = new ResultCache.Key(databaseClient, sql, bindValues, variant);
+            Flux<Object[]> result = rows;
+            if (resultCache != null) {
+                result = resultCache.get(key, () -> ResultCache.getTables(dslContext.configuration(), jooqQuery),
+                        result);
+            }
+            if (coalescer != null) {
+                result = coalescer.execute(key, result);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * The result cache is filled from the primary database. A lagging read replica could miss a write that has just
+     * invalidated the cache, so its stale result would be cached for the whole time to live.
+     *
+     * @return executor that fetches the rows of shared selects
+     */
+    private ReactiveQueryExecutor fillExecutor(ResultCache resultCache) {
+        return resultCache != null ? onPrimary() : this;
+    }
+
+    /**
+     * Invalidate the cached results, if any, that are read from the tables the queries write. The results are
+     * invalidated before and after the execution and on completion of the current transaction.
+     */
+    private <T> Flux<T> invalidateResults(Collection<? extends Query> jooqQueries, Flux<T> execution) {
+        ResultCache resultCache = getResultCache();
+        if (resultCache == null) {
+            return execution;
+        }
+        return Flux.defer(() -> {
+            Set<String> tables = new HashSet<>();
+            for (Query jooqQuery : jooqQueries) {
+                if (!JooqInternals.isResultQuery(jooqQuery)) {
+                    tables.addAll(ResultCache.getTables(dslContext.configuration(), jooqQuery));
+                }
+            }
+            if (tables.isEmpty()) {
+                return execution;
+            }
+            resultCache.invalidate(tables);
+            return TransactionSynchronizationManager.forCurrentTransaction()
+                    .filter(TransactionSynchronizationManager::isSynchronizationActive)
+                    .doOnNext(synchronizationManager -> synchronizationManager.registerSynchronization(
+                            new TransactionSynchronization() {
+                                @Override
+                                public Mono<Void> afterCompletion(int status) {
+                                    return Mono.fromRunnable(() -> resultCache.invalidate(tables));
+                                }
+                            }))
+                    .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+                    .thenMany(execution)
+                    .doFinally(signal -> resultCache.invalidate(tables));
+        });
+    }
+
+    private ResultCache getResultCache() {
+        return (ResultCache) dslContext.configuration().data(ResultCache.DATA_KEY);
+    }
+
+    private QueryCoalescer getQueryCoalescer() {
+        return (QueryCoalescer) dslContext.configuration().data(QueryCoalescer.DATA_KEY);
     }
 
     @Support
     public <R extends Record> Mono<R> fetchAny(Select<R> jooqQuery) {
-        return createR2dbcExecuteSpec(jooqQuery)
-                .map(row -> convertSelectedRowToRecord(row, jooqQuery))
-                .first();
+        SqlCache.Entry cacheEntry = getCacheEntry(jooqQuery);
+        RowMapper<R> rowMapper = getRowMapper(jooqQuery, cacheEntry);
+        return executeRead(jooqQuery, client -> createR2dbcExecuteSpec(client, jooqQuery, cacheEntry)
+                .map(rowMapper::map)
+                .first())
+                .singleOrEmpty();
     }
 
-    private <R extends Record> R convertSelectedRowToRecord(Row row, Select<R> jooqQuery) {
+    /**
+     * Fetch rows into POJOs, see {@link PojoMapper}. Like {@link #fetch(Select)} the result cache, the query coalescer
+     * and the memory budget apply, the size of a POJO is estimated from its values.
+     */
+    @Support
+    public <E> Flux<E> fetchInto(Select<?> jooqQuery, Class<E> type) {
+        PojoMapper<E> pojoMapper = PojoMapper.get(dslContext, converter, jooqQuery.getSelect(), type);
+        SqlCache.Entry cacheEntry = getCacheEntry(jooqQuery);
+        ResultCache resultCache = getResultCache();
+        QueryCoalescer coalescer = getQueryCoalescer();
+        MemoryBudget memoryBudget = (MemoryBudget) dslContext.configuration().data(MemoryBudget.DATA_KEY);
+        Flux<Object[]> rows;
+        if (resultCache == null && coalescer == null) {
+            rows = fetchMaxRows(jooqQuery, cacheEntry, pojoMapper::readValues);
+        } else {
+            // same values as of fetch(), so the results are shared with it
+            rows = fetchShared(resultCache, coalescer, jooqQuery, cacheEntry,
+                    getMaxRows(jooqQuery, dslContext.settings()),
+                    fillExecutor(resultCache).fetchMaxRows(jooqQuery, cacheEntry, pojoMapper::readValues));
+        }
+        if (memoryBudget != null) {
+            rows = memoryBudget.apply(rows, MemoryBudget::estimateSize);
+        }
+        return rows.map(pojoMapper::map);
+    }
+
+    /**
+     * Fetch at most max rows, see {@link ResultQuery#maxRows(int)} and {@link Settings#getMaxRows()}. The query is not
+     * modified, the result is cancelled after max rows.
+     */
+    private <T> Flux<T> fetchMaxRows(Select<?> jooqQuery, SqlCache.Entry cacheEntry, Function<Row, T> mapper) {
+        int maxRows = getMaxRows(jooqQuery, dslContext.settings());
+        if (maxRows <= 0) {
+            return executeRead(jooqQuery, client -> createR2dbcExecuteSpec(client, jooqQuery, cacheEntry)
+                    .map(mapper)
+                    .all());
+        }
+
+        // rows are taken inside of the execution, so the statement is complete and not cancelled server-side
+        return executeRead(jooqQuery, client -> createR2dbcExecuteSpec(client, jooqQuery, cacheEntry)
+                .map(mapper)
+                .all()
+                .take(maxRows));
+    }
+
+    /**
+     * Fetch all records page by page via keyset pagination: Each page is fetched by a seek query like
+     * <code>SELECT * FROM (query) WHERE (k1, k2) &gt; (?, ?) ORDER BY k1, k2 LIMIT pageSize</code>, beginning after the
+     * last record of the previous page. Each page is a separate statement, no connection or cursor is held in between
+     * (outside of transactions).
+     * <p>
+     * The order fields must be selected by the query, non-null and unique in combination. The query itself should not
+     * be ordered or limited.
+     *
+     * @param orderFields fields of the query to order the records by ascending
+     */
+    @Support
+    public <R extends Record> Flux<R> fetchByKeyset(Select<R> jooqQuery, List<? extends Field<?>> orderFields,
+                                                    int pageSize) {
+        if (orderFields.isEmpty()) {
+            throw new IllegalArgumentException("orderFields must not be empty");
+        }
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive: " + pageSize);
+        }
+
+        Table<R> table = jooqQuery.asTable(KEYSET_TABLE_ALIAS);
+        Field<?>[] tableFields = table.fields();
+        Field<?>[] keyFields = new Field<?>[orderFields.size()];
+        int[] keyIndexes = new int[orderFields.size()];
+        for (int i = 0; i < keyFields.length; i++) {
+            keyIndexes[i] = indexOf(tableFields, orderFields.get(i).getName());
+            keyFields[i] = tableFields[keyIndexes[i]];
+        }
+        RowMapper<R> rowMapper = rowConverter.createRowMapper(dslContext, jooqQuery.getSelect(),
+                jooqQuery.getRecordType());
+
+        return fetchKeysetPage(jooqQuery, table, keyFields, keyIndexes, null, pageSize, rowMapper)
+                .expand(page -> page.size() < pageSize ? Mono.empty() : fetchKeysetPage(jooqQuery, table,
+                        keyFields, keyIndexes, page.get(page.size() - 1), pageSize, rowMapper))
+                .concatMapIterable(page -> page);
+    }
+
+    private static int indexOf(Field<?>[] fields, String name) {
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].getName().equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Field is not selected: " + name);
+    }
+
+    /**
+     * @param last last record of the previous page or <code>null</code> for the first page
+     */
+    private <R extends Record> Mono<List<R>> fetchKeysetPage(Query jooqQuery, Table<R> table,
+                                                             Field<?>[] keyFields, int[] keyIndexes, R last,
+                                                             int pageSize, RowMapper<R> rowMapper) {
+        Condition condition = DSL.noCondition();
+        if (last != null) {
+            Field<?>[] keyValues = new Field<?>[keyFields.length];
+            for (int i = 0; i < keyFields.length; i++) {
+                keyValues[i] = DSL.val(last.get(keyIndexes[i]), keyFields[i].getDataType());
+            }
+            condition = DSL.row(keyFields).gt(DSL.row(keyValues));
+        }
+        Select<Record> pageQuery = dslContext
+                .select(table.fields())
+                .from(table)
+                .where(condition)
+                .orderBy(keyFields)
+                .limit(pageSize);
+        return executeRead(jooqQuery, client -> fetchDerived(client, pageQuery, rowMapper))
+                .collectList();
+    }
+
+    /**
+     * Fetch all records in parallel, see {@link #fetchParallel(Select, Field, int, Partitioning, boolean)}.
+     */
+    @Support
+    public <R extends Record> Flux<R> fetchParallel(Select<R> jooqQuery, Field<? extends Number> partitionField,
+                                                    int partitions) {
+        return fetchParallel(jooqQuery, partitionField, partitions, Partitioning.KEY_RANGE, false);
+    }
+
+    /**
+     * Fetch all records in parallel, see {@link #fetchParallel(Select, Field, int, Partitioning, boolean)}.
+     */
+    @Support
+    public <R extends Record> Flux<R> fetchParallel(Select<R> jooqQuery, Field<? extends Number> partitionField,
+                                                    int partitions, boolean consistentSnapshot) {
+        return fetchParallel(jooqQuery, partitionField, partitions, Partitioning.KEY_RANGE, consistentSnapshot);
+    }
+
+    /**
+     * Fetch all records in parallel: The query is split into disjoint partitions like
+     * <code>SELECT * FROM (query) WHERE partitionField &gt;= ? AND partitionField &lt; ?</code>, see
+     * {@link Partitioning}. The partitions are fetched concurrently on separate connections and merged in no particular
+     * order. Rows whose partition field is null are not fetched.
+     * <p>
+     * Inside of a transaction the partitions are fetched one after another on the connection of the transaction.
+     *
+     * @param partitionField     numeric field of the query, e. g. the primary key
+     * @param consistentSnapshot let all partitions see the same data, see {@link SharedSnapshot}. PostgreSQL only.
+     */
+    @Support
+    public <R extends Record> Flux<R> fetchParallel(Select<R> jooqQuery, Field<? extends Number> partitionField,
+                                                    int partitions, Partitioning partitioning,
+                                                    boolean consistentSnapshot) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("partitions must be positive: " + partitions);
+        }
+        if (consistentSnapshot && dslContext.family() != POSTGRES) {
+            throw new IllegalArgumentException("Consistent snapshot is not supported by dialect: " +
+                    dslContext.dialect());
+        }
+
+        Table<R> table = jooqQuery.asTable(PARTITION_TABLE_ALIAS);
+        Field<?>[] tableFields = table.fields();
+        //noinspection unchecked
+        Field<Number> tablePartitionField = (Field<Number>) tableFields[indexOf(tableFields, partitionField.getName())];
+        RowMapper<R> rowMapper = rowConverter.createRowMapper(dslContext, jooqQuery.getSelect(),
+                jooqQuery.getRecordType());
+        Function<DatabaseClient, Flux<Condition>> partitionConditions;
+        if (Objects.requireNonNull(partitioning) == Partitioning.MODULO) {
+            partitionConditions = client -> Flux.range(0, partitions)
+                    .map(partition -> DSL.abs(tablePartitionField).mod(partitions).eq(partition));
+        } else {
+            partitionConditions = client -> fetchKeyRanges(client, table, tablePartitionField, partitions);
+        }
+        Function<Condition, Select<Record>> partitionQuery = condition -> dslContext
+                .select(tableFields)
+                .from(table)
+                .where(condition);
+
+        return isTransactionActive().flatMapMany(transactionActive -> {
+            if (transactionActive) {
+                return executeCancellable(databaseClient, jooqQuery, client -> partitionConditions.apply(client)
+                        .concatMap(condition -> fetchDerived(client, partitionQuery.apply(condition), rowMapper)));
+            }
+            if (consistentSnapshot) {
+                // statements are pinned to the snapshot connections and cannot be cancelled server-side
+                int timeout = getQueryTimeout(jooqQuery, dslContext.settings());
+                Flux<R> records = SharedSnapshot.execute(databaseClient.getConnectionFactory(), partitions,
+                        partitionConditions, (condition, client) ->
+                                fetchDerived(client, partitionQuery.apply(condition), rowMapper));
+                return timeout > 0 ? QueryCancellation.timeout(records, timeout) : records;
+            }
+            Flux<Condition> conditions = partitioning == Partitioning.MODULO
+                    ? partitionConditions.apply(databaseClient)
+                    : executeRead(jooqQuery, partitionConditions);
+            return conditions.collectList().flatMapMany(Flux::fromIterable).flatMap(condition ->
+                    executeRead(jooqQuery, client -> fetchDerived(client, partitionQuery.apply(condition), rowMapper)),
+                    partitions);
+        });
+    }
+
+    /**
+     * Fetch minimum and maximum of the partition field and split the range into partitions of equal width. The first
+     * and the last partition are open, so rows that are inserted meanwhile are not lost.
+     *
+     * @return a condition per partition, none if the table is empty
+     */
+    private Flux<Condition> fetchKeyRanges(DatabaseClient client, Table<?> table, Field<Number> partitionField,
+                                           int partitions) {
+        Select<Record2<Number, Number>> rangeQuery = dslContext
+                .select(DSL.min(partitionField), DSL.max(partitionField))
+                .from(table);
+        return createR2dbcExecuteSpec(client, rangeQuery, null)
+                .map(row -> {
+                    Object min = row.get(0);
+                    Object max = row.get(1);
+                    if (min == null || max == null) {
+                        return Collections.<Condition>emptyList();
+                    }
+                    return keyRanges(partitionField, ((Number) min).longValue(), ((Number) max).longValue(),
+                            partitions);
+                })
+                .one()
+                .flatMapMany(Flux::fromIterable);
+    }
+
+    static List<Condition> keyRanges(Field<Number> partitionField, long min, long max, int partitions) {
+        BigInteger width = BigInteger.valueOf(max).subtract(BigInteger.valueOf(min)).add(BigInteger.ONE);
+        List<Long> bounds = new ArrayList<>();
+        for (int i = 1; i < partitions; i++) {
+            long bound = width.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(partitions))
+                    .add(BigInteger.valueOf(min)).longValue();
+            // fewer partitions than requested if the range is too small
+            if (bound > min && (bounds.isEmpty() || bound > bounds.get(bounds.size() - 1))) {
+                bounds.add(bound);
+            }
+        }
+
+        List<Condition> conditions = new ArrayList<>();
+        if (bounds.isEmpty()) {
+            conditions.add(partitionField.isNotNull());
+            return conditions;
+        }
+        conditions.add(partitionField.lt(bounds.get(0)));
+        for (int i = 1; i < bounds.size(); i++) {
+            conditions.add(partitionField.ge(bounds.get(i - 1)).and(partitionField.lt(bounds.get(i))));
+        }
+        conditions.add(partitionField.ge(bounds.get(bounds.size() - 1)));
+        return conditions;
+    }
+
+    /**
+     * Fetch a query that selects all fields from the derived table of a query. The rows are mapped like rows of that
+     * query.
+     */
+    private <R extends Record> Flux<R> fetchDerived(DatabaseClient client, Select<Record> derivedQuery,
+                                                    RowMapper<R> rowMapper) {
+        // a new query per execution, so caching the SQL string is useless
+        return createR2dbcExecuteSpec(client, derivedQuery, null)
+                .map(rowMapper::map)
+                .all();
+    }
+
+    /**
+     * @return whether the subscriber runs inside of a transaction of Spring's reactive transaction management
+     */
+    static Mono<Boolean> isTransactionActive() {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .map(TransactionSynchronizationManager::isActualTransactionActive)
+                .onErrorReturn(NoTransactionException.class, false);
+    }
+
+    /**
+     * Max rows like JOOQ determines it: {@link ResultQuery#maxRows(int)} or {@link Settings#getMaxRows()}.
+     *
+     * @return max rows or 0 for no limit
+     */
+    static int getMaxRows(Query jooqQuery, Settings settings) {
+        int maxRows = JooqInternals.getQueryMaxRows(jooqQuery);
+        if (maxRows != 0) {
+            return maxRows;
+        }
+        return settings != null && settings.getMaxRows() != null ? settings.getMaxRows() : 0;
+    }
+
+    @Support
+    public <E> Mono<E> fetchOneInto(Select<?> jooqQuery, Class<E> type) {
+        PojoMapper<E> pojoMapper = PojoMapper.get(dslContext, converter, jooqQuery.getSelect(), type);
+        SqlCache.Entry cacheEntry = getCacheEntry(jooqQuery);
+        ResultCache resultCache = getResultCache();
+        QueryCoalescer coalescer = getQueryCoalescer();
+        if (resultCache == null && coalescer == null) {
+            return executeRead(jooqQuery, client -> createR2dbcExecuteSpec(client, jooqQuery, cacheEntry)
+                    .map(pojoMapper::map)
+                    .one())
+                    .singleOrEmpty();
+        }
+        Flux<Object[]> rows = fillExecutor(resultCache).executeRead(jooqQuery, client ->
+                createR2dbcExecuteSpec(client, jooqQuery, cacheEntry)
+                        .map(pojoMapper::readValues)
+                        .one());
+        return fetchShared(resultCache, coalescer, jooqQuery, cacheEntry, -1, rows)
+                .map(pojoMapper::map)
+                .singleOrEmpty();
+    }
+
+    /**
+     * Get row mapper from SQL cache entry or create it.
+     */
+    private <R extends Record> RowMapper<R> getRowMapper(Select<R> jooqQuery, SqlCache.Entry entry) {
+        if (entry != null && entry.getRowMapper() != null) {
+            //noinspection unchecked
+            return (RowMapper<R>) entry.getRowMapper();
+        }
+
         List<Field<?>> allFields = jooqQuery.getSelect();
         Class<? extends R> recordType = jooqQuery.getRecordType();
-        return rowConverter.convertRowToRecord(dslContext, row, allFields, recordType);
+        RowMapper<R> rowMapper = rowConverter.createRowMapper(dslContext, allFields, recordType);
+        if (entry != null) {
+            entry.setRowMapper(rowMapper);
+        }
+        return rowMapper;
     }
 
     @Support
@@ -118,17 +649,123 @@ public class ReactiveQueryExecutor {
                 .map(record -> record.get(0, Integer.class));
     }
 
-    private <R extends Record> Mono<R> executeReturningOne(StoreQuery<R> query) {
-        return executeReturning(query).collectList().flatMap(list -> {
-            if (list.isEmpty()) {
-                return Mono.empty();
-            } else {
-                return Mono.just(list.get(0));
-            }
-        });
+    /**
+     * Estimate the number of rows from the statistics of the query planner without executing the query. Falls back to
+     * the exact count for other SQL dialects than PostgreSQL and MySQL.
+     */
+    @Support
+    public Mono<Integer> fetchCountEstimate(Select<?> jooqQuery) {
+        return fetchCountEstimate(jooqQuery, 0);
+    }
+
+    /**
+     * Estimate the number of rows from the statistics of the query planner without executing the query. Falls back to
+     * the exact count if the estimate is below the given threshold, i. e. counting is cheap.
+     * <p>
+     * The estimate is read like a select: on a read replica, with the timeout of the query.
+     */
+    @Support
+    public Mono<Integer> fetchCountEstimate(Select<?> jooqQuery, int threshold) {
+        Mono<Long> estimate;
+        switch (dslContext.family()) {
+            case POSTGRES:
+                estimate = executeRead(jooqQuery, client -> client
+                        .sql("EXPLAIN " + jooqQuery.getSQL(ParamType.INLINED))
+                        .map(row -> row.get(0, String.class))
+                        .first())
+                        .next()
+                        .flatMap(plan -> {
+                            // first line describes the top node, e. g. "Seq Scan on book  (cost=... rows=850 ...)"
+                            Matcher matcher = POSTGRES_ROWS_ESTIMATE.matcher(plan);
+                            return matcher.find() ? Mono.just(Long.parseLong(matcher.group(1))) : Mono.empty();
+                        });
+                break;
+            case MYSQL:
+                estimate = executeRead(jooqQuery, client -> client
+                        .sql("EXPLAIN " + jooqQuery.getSQL(ParamType.INLINED))
+                        .map(row -> {
+                            String selectType = row.get("select_type", String.class);
+                            Object rows = row.get("rows", Object.class);
+                            Object filtered = row.get("filtered", Object.class);
+                            boolean outerSelect = "SIMPLE".equals(selectType) || "PRIMARY".equals(selectType);
+                            if (!outerSelect) {
+                                return 1.0;
+                            }
+                            if (!(rows instanceof Number) || !(filtered instanceof Number)) {
+                                // e. g. "Impossible WHERE" or "Select tables optimized away"
+                                return Double.NaN;
+                            }
+                            return ((Number) rows).doubleValue() * ((Number) filtered).doubleValue() / 100;
+                        })
+                        .all())
+                        // tables of the outer select are joined via nested loops
+                        .reduce(1.0, (a, b) -> a * b)
+                        .filter(rows -> !Double.isNaN(rows))
+                        .map(Math::round);
+                break;
+            default:
+                estimate = Mono.empty();
+        }
+
+        return estimate
+                .filter(rows -> rows >= threshold)
+                .map(rows -> (int) Math.min(rows, Integer.MAX_VALUE))
+                .switchIfEmpty(Mono.defer(() -> fetchCount(jooqQuery)));
+    }
+
+    @Support
+    public ReactivePreparedQuery prepare(Query jooqQuery) {
+        return new ReactivePreparedQuery(this, jooqQuery, jooqQuery.getSQL(ParamType.NAMED), converter);
+    }
+
+    @Support
+    public <R extends Record> ReactivePreparedSelect<R> prepare(Select<R> jooqQuery) {
+        return new ReactivePreparedSelect<>(this, dslContext, jooqQuery, jooqQuery.getSQL(ParamType.NAMED),
+                converter);
+    }
+
+    /**
+     * Execute a prepared query like {@link #execute(Query)}, i. e. with its timeout and invalidation of cached results.
+     */
+    Mono<Integer> executePrepared(Query jooqQuery, Function<DatabaseClient, ? extends Publisher<Integer>> execution) {
+        return invalidateResults(Collections.singletonList(jooqQuery),
+                executeCancellable(databaseClient, jooqQuery, execution))
+                .singleOrEmpty();
+    }
+
+    /**
+     * Fetch a prepared select like {@link #fetch(Select)}, i. e. on a read replica, with its timeout, max rows and
+     * memory budget. Prepared selects are not shared via result cache or query coalescer.
+     */
+    <R extends Record> Flux<R> fetchPrepared(Select<R> jooqQuery, Function<DatabaseClient, Flux<R>> execution) {
+        int maxRows = getMaxRows(jooqQuery, dslContext.settings());
+        // rows are taken inside of the execution, so the statement is complete and not cancelled server-side
+        Flux<R> records = executeRead(jooqQuery, maxRows <= 0 ? execution
+                : client -> execution.apply(client).take(maxRows));
+        MemoryBudget memoryBudget = (MemoryBudget) dslContext.configuration().data(MemoryBudget.DATA_KEY);
+        return memoryBudget != null ? memoryBudget.apply(records) : records;
+    }
+
+    /**
+     * Fetch a single record of a prepared select like {@link #fetchOne(Select)}, i. e. on a read replica with its
+     * timeout.
+     */
+    <R extends Record> Mono<R> fetchOnePrepared(Select<R> jooqQuery, Function<DatabaseClient, Mono<R>> execution) {
+        return executeRead(jooqQuery, execution).singleOrEmpty();
+    }
+
+    /**
+     * Convert the first returned row only. The other rows are drained without conversion, the result is not cancelled.
+     */
+    <R extends Record> Mono<R> executeReturningOne(StoreQuery<R> query) {
+        return invalidateResults(Collections.singletonList(query), executeReturning(query, true)).singleOrEmpty();
     }
 
     <R extends Record> Flux<R> executeReturning(StoreQuery<R> query) {
+        return invalidateResults(Collections.singletonList(query), executeReturning(query, false));
+    }
+
+    private <R extends Record> Flux<R> executeReturning(StoreQuery<R> query, boolean firstOnly) {
         Table<R> table = JooqInternals.getQueryTable(query);
         List<Field<?>> returningFields = JooqInternals.getQueryReturning(query);
         List<Field<?>> returningResolvedFields = JooqInternals.getQueryReturningResolved(query);
@@ -137,8 +774,9 @@ public class ReactiveQueryExecutor {
         Class<R> recordType = (Class<R>) table.getRecordType();
 
         // create R2DBC execution spec without "RETURNING" clause
+        // the query is modified temporarily, so the SQL string must not be cached
         query.setReturning(Collections.emptyList());
-        DatabaseClient.GenericExecuteSpec executeSpec = createR2dbcExecuteSpec(query);
+        DatabaseClient.GenericExecuteSpec executeSpec = createR2dbcExecuteSpec(query, null);
         query.setReturning(returningFields);
 
         if (returningFields.isEmpty()) {
@@ -170,13 +808,21 @@ public class ReactiveQueryExecutor {
                 }
                 //noinspection unchecked
                 Field<Object> idField = (Field<Object>) identity.getField();
+                DatabaseClient.GenericExecuteSpec mySqlExecuteSpec = executeSpec;
 
-                return executeSpec
-                        .map(row -> {
-                            Object value = row.get(0, Object.class);
-                            return idField.getDataType().convert(value);
-                        })
+                // MySQL returns the first generated id of multi-row inserts only
+                int rowCount = !firstOnly && JooqInternals.isInsertValuesQuery(query)
+                        ? JooqInternals.getInsertRowCount(query) : 1;
+                Mono<Boolean> consecutiveIds = rowCount > 1 ? hasConsecutiveMySqlIds(query) : Mono.just(false);
+
+                return consecutiveIds.flatMapMany(consecutive -> mySqlExecuteSpec
+                        .map(row -> row.get(0, Object.class))
                         .all().collectList()
+                        .map(ids -> firstOnly && ids.size() > 1 ? ids.subList(0, 1) : ids)
+                        .map(ids -> consecutive && ids.size() == 1 ? deriveMySqlIds(ids.get(0), rowCount) : ids)
+                        .map(ids -> ids.stream()
+                                .map(id -> idField.getDataType().convert(id))
+                                .collect(Collectors.toList()))
                         .flatMapMany(ids -> {
                             if (returningResolvedFields.size() == 1 &&
                                     returningResolvedFields.get(0).getName().equals(idField.getName())) {
@@ -189,49 +835,219 @@ public class ReactiveQueryExecutor {
                                 }).collect(Collectors.toList());
                                 return Flux.fromIterable(records);
                             } else {
-                                // Other values are requested, too. Run another query
-                                Select<Record> select = dslContext
-                                        .select(returningFields)
-                                        .from(table)
-                                        .where(idField.in(ids));
-                                return fetch(select);
+                                // Other values are requested, too. Run further queries, chunked and pipelined
+                                return Flux.fromIterable(chunk(ids, MYSQL_SELECT_CHUNK_SIZE))
+                                        .flatMapSequential(chunk -> {
+                                            Select<Record> select = dslContext
+                                                    .select(returningFields)
+                                                    .from(table)
+                                                    .where(idField.in(chunk))
+                                                    .orderBy(idField);
+                                            // not limited by max rows or memory budget of the settings
+                                            select.maxRows(chunk.size());
+                                            // replicas may not contain the new records yet
+                                            return onPrimary().fetch(select, null);
+                                        }, MYSQL_SELECT_CONCURRENCY);
                             }
-                        })
+                        }))
                         .map(r -> r.into(recordType));
 
             case H2:
             case POSTGRES:
             default:
-                return executeSpec
-                        .map(row -> rowConverter.convertRowToRecord(dslContext, row, returningResolvedFields, recordType))
-                        .all();
+                RowMapper<R> rowMapper = rowConverter.createRowMapper(dslContext, returningResolvedFields, recordType);
+                if (!firstOnly) {
+                    return executeSpec
+                            .map(rowMapper::map)
+                            .all();
+                }
+                DatabaseClient.GenericExecuteSpec firstOnlyExecuteSpec = executeSpec;
+                return Flux.defer(() -> {
+                    AtomicBoolean first = new AtomicBoolean(true);
+                    return firstOnlyExecuteSpec
+                            .map(row -> first.getAndSet(false) ? Optional.of(rowMapper.map(row)) : Optional.<R>empty())
+                            .all()
+                            .filter(Optional::isPresent)
+                            .map(Optional::get);
+                });
         }
     }
 
+    /**
+     * Check whether the ids generated by a MySQL insert query can be derived from the first id: The query inserts
+     * multiple rows without explicit id values and the auto-increment lock mode generates consecutive ids per
+     * statement.
+     */
+    Mono<Boolean> hasConsecutiveMySqlIds(StoreQuery<?> query) {
+        Identity<?, ?> identity = JooqInternals.getQueryTable(query).getIdentity();
+        if (identity == null || !JooqInternals.isInsertValuesQuery(query) ||
+                JooqInternals.getInsertFields(query).contains(identity.getField())) {
+            return Mono.just(false);
+        }
+        return getMySqlAutoIncrement().map(autoIncrement -> autoIncrement.consecutive);
+    }
+
+    private List<Object> deriveMySqlIds(Object firstId, int rowCount) {
+        long increment = ((MySqlAutoIncrement) dslContext.configuration().data(MySqlAutoIncrement.DATA_KEY)).increment;
+        long id = ((Number) firstId).longValue();
+        List<Object> ids = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            ids.add(id + i * increment);
+        }
+        return ids;
+    }
+
+    /**
+     * Get auto-increment settings of MySQL from the configuration or query them once. A failed query is not cached, so
+     * ids are not derived until the settings could be queried.
+     */
+    private Mono<MySqlAutoIncrement> getMySqlAutoIncrement() {
+        Configuration configuration = dslContext.configuration();
+        MySqlAutoIncrement autoIncrement = (MySqlAutoIncrement) configuration.data(MySqlAutoIncrement.DATA_KEY);
+        if (autoIncrement != null) {
+            return Mono.just(autoIncrement);
+        }
+        return databaseClient.sql("SELECT @@auto_increment_increment, @@innodb_autoinc_lock_mode")
+                .map(row -> {
+                    long increment = ((Number) row.get(0, Object.class)).longValue();
+                    long lockMode = ((Number) row.get(1, Object.class)).longValue();
+                    // "traditional" and "consecutive" lock modes generate consecutive ids for simple inserts
+                    return new MySqlAutoIncrement(increment, lockMode == 0 || lockMode == 1);
+                })
+                .one()
+                .doOnNext(result -> configuration.data(MySqlAutoIncrement.DATA_KEY, result))
+                .onErrorReturn(new MySqlAutoIncrement(1, false));
+    }
+
+    static class MySqlAutoIncrement {
+        static final String DATA_KEY = "mysqlAutoIncrement";
+
+        final long increment;
+        final boolean consecutive;
+
+        MySqlAutoIncrement(long increment, boolean consecutive) {
+            this.increment = increment;
+            this.consecutive = consecutive;
+        }
+    }
+
+    private static <T> List<List<T>> chunk(List<T> list, int chunkSize) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < list.size(); i += chunkSize) {
+            chunks.add(list.subList(i, Math.min(i + chunkSize, list.size())));
+        }
+        return chunks;
+    }
+
     /**
      * Execute JOOQ query via R2DBC database client.
      */
     private DatabaseClient.GenericExecuteSpec createR2dbcExecuteSpec(Query jooqQuery) {
-        String sql = jooqQuery.getSQL(ParamType.NAMED);
-        DatabaseClient.GenericExecuteSpec executeSpec = databaseClient.sql(sql);
-
-        List<Param<?>> parameters = jooqQuery.getParams().values().stream()
-                .filter(p -> p.getParamType() != ParamType.INLINED).collect(Collectors.toList());
-        for (int i = 0; i < parameters.size(); i++) {
-            Param<?> parameter = parameters.get(i);
-            Object bindValue = parameter.getValue();
-            Class<?> bindType = parameter.getType();
-
-            if (bindValue == null) {
-                bindType = converter.toR2dbcType(bindType);
-                executeSpec = executeSpec.bindNull(i, bindType);
-            } else {
-                bindValue = converter.toR2dbcValue(bindValue);
-                executeSpec = executeSpec.bind(i, bindValue);
+        return createR2dbcExecuteSpec(jooqQuery, getCacheEntry(jooqQuery));
+    }
+
+    private DatabaseClient.GenericExecuteSpec createR2dbcExecuteSpec(Query jooqQuery, SqlCache.Entry entry) {
+        return createR2dbcExecuteSpec(databaseClient, jooqQuery, entry);
+    }
+
+    /**
+     * @param entry SQL cache entry of the query or <code>null</code> if the query is not cached
+     */
+    private DatabaseClient.GenericExecuteSpec createR2dbcExecuteSpec(DatabaseClient databaseClient, Query jooqQuery,
+                                                                     SqlCache.Entry entry) {
+        int fetchSize = getFetchSize(jooqQuery, dslContext.settings());
+
+        if (entry != null) {
+            // the entry knows the bind parameters already, no need to collect them again
+            BindingPlan bindingPlan = entry.getBindingPlan();
+            if (bindingPlan == null || !bindingPlan.isCompatible(converter)) {
+                bindingPlan = BindingPlan.create(entry.bindParams, converter);
+                entry.setBindingPlan(bindingPlan);
             }
+            return applyFetchSize(bindingPlan.bind(databaseClient.sql(entry.sql), entry.bindParams), fetchSize);
+        }
+
+        // creating a plan does not pay off for a single execution
+        Collection<Param<?>> parameters = jooqQuery.getParams().values();
+        String sql = jooqQuery.getSQL(ParamType.NAMED);
+        return applyFetchSize(BindingPlan.bind(databaseClient.sql(sql), parameters, converter), fetchSize);
+    }
+
+    /**
+     * Execute a select on a read replica, see {@link ReadReplicas}. Inside of a transaction or without read replicas
+     * the select is executed on the primary database.
+     */
+    private <T> Flux<T> executeRead(Query jooqQuery, Function<DatabaseClient, ? extends Publisher<T>> execution) {
+        if (readReplicas == null) {
+            return executeCancellable(databaseClient, jooqQuery, execution);
+        }
+        return isTransactionActive().flatMapMany(transactionActive -> transactionActive
+                ? executeCancellable(databaseClient, jooqQuery, execution)
+                : readReplicas.execute(databaseClient, client -> executeCancellable(client, jooqQuery, execution)));
+    }
+
+    /**
+     * Execute the query with its timeout. If the query times out or the subscriber cancels, the statement is cancelled
+     * server-side, see {@link QueryCancellation}. Cancellation on dispose is enabled for all queries via configuration
+     * data "cancelOnDispose", otherwise only queries with timeout are cancelled server-side.
+     *
+     * @param execution executes the query with the given database client
+     */
+    private <T> Flux<T> executeCancellable(DatabaseClient databaseClient, Query jooqQuery,
+                                           Function<DatabaseClient, ? extends Publisher<T>> execution) {
+        int timeout = getQueryTimeout(jooqQuery, dslContext.settings());
+        boolean cancelOnDispose = Boolean.TRUE.equals(dslContext.configuration().data(CANCEL_ON_DISPOSE_KEY));
+        if (timeout <= 0 && !cancelOnDispose) {
+            return Flux.from(execution.apply(databaseClient));
+        }
+
+        Flux<T> result = QueryCancellation.execute(dslContext.dialect(), databaseClient, execution);
+        return timeout > 0 ? QueryCancellation.timeout(result, timeout) : result;
+    }
+
+    /**
+     * Query timeout like JOOQ determines it: {@link Query#queryTimeout(int)} or {@link Settings#getQueryTimeout()}.
+     *
+     * @return timeout in seconds or 0 for no timeout
+     */
+    static int getQueryTimeout(Query jooqQuery, Settings settings) {
+        int timeout = JooqInternals.getQueryTimeout(jooqQuery);
+        if (timeout != 0) {
+            return timeout;
+        }
+        return settings != null && settings.getQueryTimeout() != null ? settings.getQueryTimeout() : 0;
+    }
+
+    /**
+     * Fetch size of result queries like JOOQ determines it: {@link ResultQuery#fetchSize(int)} or
+     * {@link Settings#getFetchSize()}.
+     *
+     * @return fetch size or 0 for the driver default
+     */
+    static int getFetchSize(Query jooqQuery, Settings settings) {
+        if (!JooqInternals.isResultQuery(jooqQuery)) {
+            return 0;
+        }
+        int fetchSize = JooqInternals.getQueryFetchSize(jooqQuery);
+        if (fetchSize != 0) {
+            return fetchSize;
+        }
+        return settings != null && settings.getFetchSize() != null ? settings.getFetchSize() : 0;
+    }
+
+    /**
+     * Let the driver fetch the rows in chunks of the given size, e. g. via a cursor, instead of all at once.
+     */
+    static DatabaseClient.GenericExecuteSpec applyFetchSize(DatabaseClient.GenericExecuteSpec executeSpec,
+                                                            int fetchSize) {
+        if (fetchSize <= 0) {
+            return executeSpec;
         }
-        return executeSpec;
+        return executeSpec.filter(s -> s.fetchSize(fetchSize));
     }
 
+    private SqlCache.Entry getCacheEntry(Query jooqQuery) {
+        return sqlCache != null ? sqlCache.getEntry(jooqQuery, dslContext.configuration()) : null;
+    }
 
 }
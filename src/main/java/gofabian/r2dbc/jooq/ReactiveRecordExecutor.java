@@ -6,12 +6,12 @@ import org.jooq.conf.Settings;
 import org.jooq.exception.NoDataFoundException;
 import org.jooq.tools.JooqLogger;
 import org.springframework.r2dbc.core.DatabaseClient;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.LinkedHashSet;
-import java.util.Objects;
+import java.time.Duration;
+import java.util.*;
 
 import static java.lang.Boolean.FALSE;
 import static java.lang.Boolean.TRUE;
@@ -20,6 +20,13 @@ public class ReactiveRecordExecutor {
 
     private static final JooqLogger log = JooqLogger.getLogger(RowConverter.class);
 
+    static final String BATCH_INSERT_MAX_ROWS_KEY = "batchInsertMaxRows";
+    static final String BATCH_INSERT_MAX_BYTES_KEY = "batchInsertMaxBytes";
+    /**
+     * Default <code>max_allowed_packet</code> of MySQL 5.7, MySQL 8 allows 64 MiB.
+     */
+    private static final long MYSQL_MAX_STATEMENT_BYTES = 4 * 1024 * 1024;
+
     private final DSLContext dslContext;
     private final ReactiveQueryExecutor reactiveQueryExecutor;
 
@@ -28,19 +35,30 @@ public class ReactiveRecordExecutor {
         this.reactiveQueryExecutor = new ReactiveQueryExecutor(dslContext, databaseClient, converter);
     }
 
+    ReactiveRecordExecutor(DSLContext dslContext, ReactiveQueryExecutor reactiveQueryExecutor) {
+        this.dslContext = Objects.requireNonNull(dslContext);
+        this.reactiveQueryExecutor = Objects.requireNonNull(reactiveQueryExecutor);
+    }
+
     public static ReactiveRecordExecutor from(Attachable attachable) {
         return from(attachable.configuration().dsl());
     }
 
     public static ReactiveRecordExecutor from(DSLContext dslContext) {
-        Configuration configuration = dslContext.configuration();
-        DatabaseClient databaseClient = (DatabaseClient) configuration.data("databaseClient");
-        Converter converter = (Converter) configuration.data("converter");
-        return new ReactiveRecordExecutor(dslContext, databaseClient, converter);
+        // records are written and refreshed on the primary database
+        return new ReactiveRecordExecutor(dslContext, ReactiveQueryExecutor.from(dslContext).onPrimary());
     }
 
     @Support
     public Mono<Integer> store(UpdatableRecord<?> record) {
+        if (isUpdate(record)) {
+            return update(record);
+        } else {
+            return insert(record);
+        }
+    }
+
+    private boolean isUpdate(UpdatableRecord<?> record) {
         TableField<?, ?>[] keys = record.getTable().getPrimaryKey().getFieldsArray();
         boolean executeUpdate = false;
 
@@ -59,11 +77,7 @@ public class ReactiveRecordExecutor {
             executeUpdate = true;
         }
 
-        if (executeUpdate) {
-            return update(record);
-        } else {
-            return insert(record);
-        }
+        return executeUpdate;
     }
 
     @Support
@@ -74,6 +88,230 @@ public class ReactiveRecordExecutor {
 
     }
 
+    /**
+     * Insert records with multi-row <code>INSERT ... VALUES (...), (...)</code> statements. Records of the same table
+     * with the same changed fields are inserted together, the statements are split to stay below the bind value limit
+     * and the statement size limit of the database, e. g. the MySQL <code>max_allowed_packet</code>. Identity values
+     * are set into the records like {@link #insert(TableRecord)} does.
+     * <p>
+     * The records per statement and the estimated bytes per statement can be limited, too:
+     * <pre>
+     *     dslContext.configuration().data("batchInsertMaxRows", 500);
+     *     dslContext.configuration().data("batchInsertMaxBytes", 1024 * 1024L);
+     * </pre>
+     *
+     * @return total insert count
+     */
+    @Support
+    public Mono<Integer> batchInsert(Collection<? extends TableRecord<?>> records) {
+        return Flux.defer(() -> Flux.fromIterable(groupByChangedFields(records)))
+                .concatMap(group -> Flux.fromIterable(chunk(group)))
+                .concatMap(this::insertChunk)
+                .reduce(0, Integer::sum);
+    }
+
+    /**
+     * Insert a stream of records in batches like {@link #batchInsert(Collection)} does. A batch is inserted when it
+     * contains <code>maxSize</code> records or when its first record waited for <code>maxLatency</code>. New records
+     * are requested only after a batch has been inserted and the downstream requested more results.
+     *
+     * @return insert count per batch
+     */
+    @Support
+    public Flux<Integer> insertAll(Publisher<? extends TableRecord<?>> records, int maxSize, Duration maxLatency) {
+        return StreamingInsert.create(records, maxSize, maxLatency, this::batchInsert);
+    }
+
+    /**
+     * Store records like {@link #store(UpdatableRecord)} does. New records are inserted like
+     * {@link #batchInsert(Collection)} does, then the other records are updated in batches of equal update statements.
+     *
+     * @return total insert/update count
+     */
+    @Support
+    public Mono<Integer> batchStore(Collection<? extends UpdatableRecord<?>> records) {
+        return Mono.defer(() -> {
+            List<UpdatableRecord<?>> inserts = new ArrayList<>();
+            List<UpdatableRecord<?>> updates = new ArrayList<>();
+            for (UpdatableRecord<?> record : records) {
+                (isUpdate(record) ? updates : inserts).add(record);
+            }
+            return batchInsert(inserts).flatMap(insertCount -> batchUpdate(updates).map(n -> insertCount + n));
+        });
+    }
+
+    private Mono<Integer> batchUpdate(List<UpdatableRecord<?>> records) {
+        List<UpdatableRecord<?>> sortedRecords = new ArrayList<>();
+        List<Query> updates = new ArrayList<>();
+        for (List<TableRecord<?>> group : groupByChangedFields(records)) {
+            for (TableRecord<?> record : group) {
+                UpdatableRecord<?> updatableRecord = (UpdatableRecord<?>) record;
+                TableField<?, ?>[] keys = updatableRecord.getTable().getPrimaryKey().getFieldsArray();
+                UpdateQuery<?> update = dslContext.updateQuery(updatableRecord.getTable());
+                addChangedValues(updatableRecord, update);
+                Tools.addConditions(update, updatableRecord, keys);
+                sortedRecords.add(updatableRecord);
+                updates.add(update);
+            }
+        }
+        if (updates.isEmpty()) {
+            return Mono.just(0);
+        }
+
+        return reactiveQueryExecutor.batch(updates)
+                .index()
+                .doOnNext(result -> {
+                    if (result.getT2() > 0) {
+                        sortedRecords.get(result.getT1().intValue()).changed(false);
+                    }
+                })
+                .reduce(0, (sum, result) -> sum + result.getT2());
+    }
+
+    /**
+     * Group records by table and changed fields, keep order of first occurrence. Unchanged records are skipped.
+     */
+    private List<List<TableRecord<?>>> groupByChangedFields(Collection<? extends TableRecord<?>> records) {
+        Map<List<Object>, List<TableRecord<?>>> groups = new LinkedHashMap<>();
+        for (TableRecord<?> record : records) {
+            List<Object> key = new ArrayList<>();
+            key.add(record.getTable());
+            for (int i = 0; i < record.size(); i++) {
+                if (record.changed(i)) {
+                    key.add(i);
+                }
+            }
+            if (key.size() > 1) {
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(record);
+            }
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    /**
+     * Split records into statements below the bind value limit, the row limit and the estimated byte limit.
+     */
+    List<List<TableRecord<?>>> chunk(List<TableRecord<?>> records) {
+        int maxRows = Math.min(getMaxBindValues() / countChanged(records.get(0)), getBatchInsertMaxRows());
+        long maxBytes = getBatchInsertMaxBytes();
+        List<List<TableRecord<?>>> chunks = new ArrayList<>();
+        int start = 0;
+        long bytes = 0;
+        for (int i = 0; i < records.size(); i++) {
+            long recordBytes = estimateChangedSize(records.get(i));
+            if (i > start && (i - start >= maxRows || bytes + recordBytes > maxBytes)) {
+                chunks.add(records.subList(start, i));
+                start = i;
+                bytes = 0;
+            }
+            bytes += recordBytes;
+        }
+        chunks.add(records.subList(start, records.size()));
+        return chunks;
+    }
+
+    private static long estimateChangedSize(TableRecord<?> record) {
+        long bytes = 0;
+        for (int i = 0; i < record.size(); i++) {
+            if (record.changed(i)) {
+                // bind marker, separator and value
+                bytes += 4 + MemoryBudget.estimateSize(record.get(i));
+            }
+        }
+        return bytes;
+    }
+
+    private static int countChanged(TableRecord<?> record) {
+        int count = 0;
+        for (int i = 0; i < record.size(); i++) {
+            if (record.changed(i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int getBatchInsertMaxRows() {
+        Object maxRows = dslContext.configuration().data(BATCH_INSERT_MAX_ROWS_KEY);
+        return maxRows == null ? Integer.MAX_VALUE : Math.max(1, ((Number) maxRows).intValue());
+    }
+
+    /**
+     * Maximum estimated size of the values per statement.
+     */
+    private long getBatchInsertMaxBytes() {
+        Object maxBytes = dslContext.configuration().data(BATCH_INSERT_MAX_BYTES_KEY);
+        if (maxBytes != null) {
+            return ((Number) maxBytes).longValue();
+        }
+        return dslContext.family() == SQLDialect.MYSQL ? MYSQL_MAX_STATEMENT_BYTES : Long.MAX_VALUE;
+    }
+
+    /**
+     * Maximum number of bind values per statement.
+     */
+    private int getMaxBindValues() {
+        switch (dslContext.family()) {
+            case MYSQL:
+                return 65535;
+            case POSTGRES:
+            default:
+                return 32767;
+        }
+    }
+
+    /**
+     * Insert records of same table and changed fields with a single statement.
+     */
+    private Mono<Integer> insertChunk(List<TableRecord<?>> records) {
+        TableRecord<?> firstRecord = records.get(0);
+        InsertQuery<?> insert = dslContext.insertQuery(firstRecord.getTable());
+        for (int i = 0; i < records.size(); i++) {
+            if (i > 0) {
+                insert.newRecord();
+            }
+            addChangedValues(records.get(i), insert);
+        }
+
+        Collection<Field<?>> key = setReturningIfNeeded(firstRecord, insert);
+
+        if (key == null || key.isEmpty()) {
+            return reactiveQueryExecutor.execute(insert)
+                    .doOnNext(result -> {
+                        if (result > 0) {
+                            records.forEach(record -> record.changed(false));
+                        }
+                    });
+        }
+
+        if (dslContext.family() == SQLDialect.MYSQL && records.size() > 1) {
+            // MySQL returns the first generated id only, the other ids can be derived in some cases
+            return reactiveQueryExecutor.hasConsecutiveMySqlIds(insert).flatMap(consecutive -> consecutive
+                    ? insertChunkReturning(records, insert, key)
+                    : Flux.fromIterable(records).concatMap(this::insert).reduce(0, Integer::sum));
+        }
+
+        return insertChunkReturning(records, insert, key);
+    }
+
+    private Mono<Integer> insertChunkReturning(List<TableRecord<?>> records, InsertQuery<?> insert,
+                                               Collection<Field<?>> key) {
+        return reactiveQueryExecutor.executeReturning(insert)
+                .collectList()
+                .flatMap(returnedRecords -> {
+                    // returned rows are in order of the VALUES rows
+                    int count = Math.min(returnedRecords.size(), records.size());
+                    return Flux.range(0, count)
+                            .concatMap(i -> getReturningIfNeeded(returnedRecords.get(i), records.get(i), key))
+                            .then(Mono.fromCallable(() -> {
+                                if (!returnedRecords.isEmpty()) {
+                                    records.forEach(record -> record.changed(false));
+                                }
+                                return returnedRecords.size();
+                            }));
+                });
+    }
+
     @Support
     public Mono<Integer> update(UpdatableRecord<?> record) {
         UpdateQuery<?> update = dslContext.updateQuery(record.getTable());
@@ -103,12 +341,12 @@ public class ReactiveRecordExecutor {
         if (key == null || key.isEmpty()) {
             monoResult = reactiveQueryExecutor.execute(insert);
         } else {
-            monoResult = reactiveQueryExecutor.executeReturning(insert)
-                    .collectList()
-                    .flatMap(returnedRecords -> {
+            monoResult = reactiveQueryExecutor.executeReturningOne(insert)
+                    .map(returnedRecord -> Optional.of((TableRecord<?>) returnedRecord))
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(returnedRecord -> {
                         // [JOOQ#1859] If an insert was successful try fetching the generated values.
-                        TableRecord<?> r = returnedRecords.isEmpty() ? null : (TableRecord<?>) returnedRecords.get(0);
-                        Mono<Void> monoRefresh = getReturningIfNeeded(r, record, key);
+                        Mono<Void> monoRefresh = getReturningIfNeeded(returnedRecord.orElse(null), record, key);
                         return monoRefresh.thenReturn(record);
                     })
                     .hasElement()
@@ -203,6 +441,12 @@ public class ReactiveRecordExecutor {
     private Mono<Void> getReturningIfNeeded(Record returnedRecord, TableRecord<?> record, Collection<Field<?>> key) {
         if (key != null && !key.isEmpty()) {
 
+            // values are known if they have been returned or sent to the database. The returned record has all
+            // fields of the table, so only non-null values are known to be returned.
+            boolean allValuesKnown = returnedRecord != null && key.stream()
+                    .allMatch(field -> record.changed(field) ||
+                            returnedRecord.field(field) != null && returnedRecord.get(field) != null);
+
             if (returnedRecord != null) {
                 for (Field<?> field : key) {
                     setValue(returnedRecord, record, field);
@@ -213,6 +457,7 @@ public class ReactiveRecordExecutor {
             // [JOOQ#1859] In some databases, not all fields can be fetched via getGeneratedKeys()
             if (TRUE.equals(dslContext.settings().isReturnAllOnUpdatableRecord())
                     && dslContext.family() == SQLDialect.MYSQL
+                    && !allValuesKnown
                     && record instanceof UpdatableRecord) {
                 return refresh((UpdatableRecord<?>) record, key.toArray(new Field<?>[0]));
             }
@@ -245,6 +490,31 @@ public class ReactiveRecordExecutor {
         });
     }
 
+    /**
+     * Delete records like {@link #delete(UpdatableRecord)} does, in batches of equal delete statements.
+     *
+     * @return total delete count
+     */
+    Mono<Integer> batchDelete(List<? extends UpdatableRecord<?>> records) {
+        if (records.isEmpty()) {
+            return Mono.just(0);
+        }
+        List<Query> deletes = new ArrayList<>();
+        for (UpdatableRecord<?> record : records) {
+            DeleteQuery<?> delete = dslContext.deleteQuery(record.getTable());
+            Tools.addConditions(delete, record, record.getTable().getPrimaryKey().getFieldsArray());
+            deletes.add(delete);
+        }
+
+        return reactiveQueryExecutor.batch(deletes)
+                .reduce(0, Integer::sum)
+                .doFinally(signal -> {
+                    // [JOOQ#673] [JOOQ#3363] If store() is called after delete(), a new INSERT should
+                    // be executed and the record should be recreated
+                    records.forEach(record -> record.changed(true));
+                });
+    }
+
     @Support
     public <R extends UpdatableRecord<R>> Mono<Void> refresh(R record) {
         return refresh(record, record.fields());
@@ -0,0 +1,141 @@
+package gofabian.r2dbc.jooq;
+
+import org.jooq.*;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+
+/**
+ * Tracks registered records and writes their changes in batches on {@link #flush()}.
+ * <p>
+ * New and changed records are stored like {@link ReactiveRecordExecutor#batchStore(Collection)} does, records
+ * registered for deletion are deleted in batches of equal delete statements. Tables are ordered by their foreign key
+ * references: Referenced tables are stored before referencing tables, referencing tables are deleted before referenced
+ * tables.
+ * <p>
+ * A unit of work is not bound to a transaction. Run it inside of a transaction, e. g. with the
+ * <code>TransactionalOperator</code> of Spring, to flush all changes atomically.
+ */
+public class ReactiveUnitOfWork {
+
+    static final Class<ReactiveUnitOfWork> CONTEXT_KEY = ReactiveUnitOfWork.class;
+
+    private final ReactiveRecordExecutor recordExecutor;
+
+    // guarded by this, records are identified by instance
+    private final Map<UpdatableRecord<?>, Boolean> registered = new IdentityHashMap<>();
+    private final List<UpdatableRecord<?>> stores = new ArrayList<>();
+    private final List<UpdatableRecord<?>> deletes = new ArrayList<>();
+
+    public ReactiveUnitOfWork(DSLContext dslContext) {
+        this(ReactiveRecordExecutor.from(dslContext));
+    }
+
+    ReactiveUnitOfWork(ReactiveRecordExecutor recordExecutor) {
+        this.recordExecutor = Objects.requireNonNull(recordExecutor);
+    }
+
+    /**
+     * @return unit of work of the Reactor context, see {@link ReactiveJooq#withUnitOfWork(DSLContext,
+     * java.util.function.Function)}
+     */
+    public static Mono<ReactiveUnitOfWork> current() {
+        return Mono.deferContextual(context -> Mono.justOrEmpty(context.getOrEmpty(CONTEXT_KEY)));
+    }
+
+    /**
+     * Store the record on flush if it is new or changed. The record stays registered after the flush.
+     */
+    public synchronized <R extends UpdatableRecord<?>> R register(R record) {
+        Boolean deleted = registered.put(record, false);
+        if (deleted == null) {
+            stores.add(record);
+        } else if (deleted) {
+            deletes.removeIf(r -> r == record);
+            stores.add(record);
+        }
+        return record;
+    }
+
+    /**
+     * Delete the record on flush.
+     */
+    public synchronized <R extends UpdatableRecord<?>> R registerDeleted(R record) {
+        Boolean deleted = registered.put(record, true);
+        if (deleted == null) {
+            deletes.add(record);
+        } else if (!deleted) {
+            stores.removeIf(r -> r == record);
+            deletes.add(record);
+        }
+        return record;
+    }
+
+    /**
+     * Store new and changed records, then delete the records registered for deletion.
+     *
+     * @return total insert/update/delete count
+     */
+    public Mono<Integer> flush() {
+        return Mono.defer(() -> {
+            List<UpdatableRecord<?>> storeRecords;
+            List<UpdatableRecord<?>> deleteRecords;
+            synchronized (this) {
+                storeRecords = new ArrayList<>(stores);
+                deleteRecords = new ArrayList<>(deletes);
+                for (UpdatableRecord<?> record : deletes) {
+                    registered.remove(record);
+                }
+                deletes.clear();
+            }
+
+            List<Table<?>> tables = sortByReferences(getTables(storeRecords, deleteRecords));
+            sortByTables(storeRecords, tables);
+            Collections.reverse(tables);
+            sortByTables(deleteRecords, tables);
+
+            return recordExecutor.batchStore(storeRecords)
+                    .flatMap(storeCount -> recordExecutor.batchDelete(deleteRecords)
+                            .map(deleteCount -> storeCount + deleteCount));
+        });
+    }
+
+    private static Set<Table<?>> getTables(List<UpdatableRecord<?>> storeRecords,
+                                           List<UpdatableRecord<?>> deleteRecords) {
+        Set<Table<?>> tables = new LinkedHashSet<>();
+        storeRecords.forEach(record -> tables.add(record.getTable()));
+        deleteRecords.forEach(record -> tables.add(record.getTable()));
+        return tables;
+    }
+
+    private static void sortByTables(List<UpdatableRecord<?>> records, List<Table<?>> tables) {
+        records.sort((a, b) -> Integer.compare(tables.indexOf(a.getTable()), tables.indexOf(b.getTable())));
+    }
+
+    /**
+     * Sort tables so that referenced tables come before referencing tables, also transitively via other tables.
+     * Self-references and cycles are ignored.
+     */
+    static List<Table<?>> sortByReferences(Collection<Table<?>> tables) {
+        Set<Table<?>> sorted = new LinkedHashSet<>();
+        Set<Table<?>> visited = new HashSet<>();
+        for (Table<?> table : tables) {
+            visitReferences(table, tables, visited, sorted);
+        }
+        return new ArrayList<>(sorted);
+    }
+
+    private static void visitReferences(Table<?> table, Collection<Table<?>> tables, Set<Table<?>> visited,
+                                        Set<Table<?>> sorted) {
+        if (!visited.add(table)) {
+            return;
+        }
+        for (ForeignKey<?, ?> reference : table.getReferences()) {
+            visitReferences(reference.getKey().getTable(), tables, visited, sorted);
+        }
+        if (tables.contains(table)) {
+            sorted.add(table);
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+package gofabian.r2dbc.jooq;
+
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import io.r2dbc.spi.R2dbcTransientResourceException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Read replicas of the primary database. Selects of {@link ReactiveQueryExecutor} are executed on the replicas, all
+ * other statements on the primary database.
+ * <p>
+ * Replicas are chosen round-robin. A replica that fails with a connection error is ejected for the ejection duration,
+ * the select is retried on the next replica if it did not return rows yet. If all replicas are ejected the selects are
+ * executed on the primary database. Selects inside of a transaction are always executed on the primary database.
+ * <p>
+ * Replicas are lagging behind, so records are refreshed from the primary database. Declare the replicas as bean for the
+ * auto-configuration or set them via configuration data:
+ * <pre>
+ *     dslContext.configuration().data("readReplicas", new ReadReplicas(Arrays.asList(replica1, replica2)));
+ * </pre>
+ */
+public class ReadReplicas {
+
+    static final String DATA_KEY = "readReplicas";
+
+    private final List<Replica> replicas;
+    private final long ejectionNanos;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Eject failed replicas for 30 seconds.
+     */
+    public ReadReplicas(List<ConnectionFactory> connectionFactories) {
+        this(connectionFactories, Duration.ofSeconds(30));
+    }
+
+    public ReadReplicas(List<ConnectionFactory> connectionFactories, Duration ejectionDuration) {
+        if (connectionFactories.isEmpty()) {
+            throw new IllegalArgumentException("connectionFactories must not be empty");
+        }
+        List<Replica> replicas = new ArrayList<>();
+        for (ConnectionFactory connectionFactory : connectionFactories) {
+            replicas.add(new Replica(DatabaseClient.create(connectionFactory)));
+        }
+        this.replicas = Collections.unmodifiableList(replicas);
+        this.ejectionNanos = ejectionDuration.toNanos();
+    }
+
+    public int size() {
+        return replicas.size();
+    }
+
+    /**
+     * @return number of replicas that are not ejected
+     */
+    public int getHealthyCount() {
+        long now = System.nanoTime();
+        return (int) replicas.stream().filter(replica -> replica.isHealthy(now)).count();
+    }
+
+    /**
+     * Execute on the next healthy replica or on the primary database if all replicas are ejected.
+     *
+     * @param execution executes the statement with the given database client
+     */
+    <T> Flux<T> execute(DatabaseClient primary, Function<DatabaseClient, Flux<T>> execution) {
+        return execute(primary, execution, replicas.size());
+    }
+
+    private <T> Flux<T> execute(DatabaseClient primary, Function<DatabaseClient, Flux<T>> execution, int attempts) {
+        return Flux.defer(() -> {
+            Replica replica = attempts > 0 ? nextHealthy() : null;
+            if (replica == null) {
+                return execution.apply(primary);
+            }
+            AtomicBoolean emitted = new AtomicBoolean();
+            return execution.apply(replica.databaseClient)
+                    .doOnNext(item -> emitted.set(true))
+                    .onErrorResume(ReadReplicas::isConnectionFailure, e -> {
+                        replica.eject(System.nanoTime() + ejectionNanos);
+                        if (emitted.get()) {
+                            return Flux.error(e);
+                        }
+                        return execute(primary, execution, attempts - 1);
+                    });
+        });
+    }
+
+    private Replica nextHealthy() {
+        long now = System.nanoTime();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            if (replica.isHealthy(now)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    static boolean isConnectionFailure(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof DataAccessResourceFailureException ||
+                    e instanceof TransientDataAccessResourceException ||
+                    e instanceof R2dbcNonTransientResourceException ||
+                    e instanceof R2dbcTransientResourceException ||
+                    e instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Replica {
+        final DatabaseClient databaseClient;
+        volatile long ejectedUntil;
+        volatile boolean ejected;
+
+        Replica(DatabaseClient databaseClient) {
+            this.databaseClient = databaseClient;
+        }
+
+        boolean isHealthy(long now) {
+            return !ejected || now - ejectedUntil >= 0;
+        }
+
+        void eject(long until) {
+            ejectedUntil = until;
+            ejected = true;
+        }
+    }
+
+}
@@ -0,0 +1,275 @@
+package gofabian.r2dbc.jooq;
+
+import org.jooq.*;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultVisitListener;
+import org.jooq.impl.DefaultVisitListenerProvider;
+import org.jooq.impl.TableImpl;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Weight-bounded cache for the results of selects, see {@link ReactiveQueryExecutor#fetch(Select)} and
+ * {@link ReactiveQueryExecutor#fetchOne(Select)}. Results are identified by SQL string and bind values, records are
+ * created anew from the cached values on each hit.
+ * <p>
+ * A cached result expires after the time to live. It is invalidated when a table of the select is written by
+ * {@link ReactiveQueryExecutor}, {@link ReactiveRecordExecutor} or {@link ReactivePreparedQuery}, inside of a
+ * transaction also when the transaction completes. Writes via plain SQL or other clients are not noticed.
+ * <p>
+ * Results are fetched from the primary database even if read replicas are configured, see {@link ReadReplicas}.
+ * <p>
+ * Selects inside of a transaction bypass the cache. The cache is disabled by default. Enable it like that:
+ * <pre>
+ *     dslContext.configuration().data("resultCache", new ResultCache(64 * 1024 * 1024, Duration.ofSeconds(10)));
+ * </pre>
+ */
+public class ResultCache {
+
+    static final String DATA_KEY = "resultCache";
+
+    private final long maximumWeight;
+    private final long timeToLiveNanos;
+
+    // guarded by this
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    // write generation per table, incremented on each write
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * @param maximumWeight maximum estimated heap size of the cached values in bytes, see {@link MemoryBudget}
+     */
+    public ResultCache(long maximumWeight, Duration timeToLive) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight must be positive: " + maximumWeight);
+        }
+        this.maximumWeight = maximumWeight;
+        this.timeToLiveNanos = timeToLive.toNanos();
+    }
+
+    /**
+     * Get the rows from cache or fetch and cache them. Only completed results are cached.
+     *
+     * @param key    identifies the result, e. g. SQL string and bind values
+     * @param tables supplies the names of the tables the result is read from, called on cache miss
+     * @param rows   fetches the rows as values
+     */
+    Flux<Object[]> get(Key key, Supplier<Set<String>> tables, Flux<Object[]> rows) {
+        return Flux.defer(() -> {
+            Entry entry = getEntry(key);
+            if (entry != null) {
+                hitCount.increment();
+                return Flux.fromIterable(entry.rows);
+            }
+            missCount.increment();
+
+            // generations before executing, so concurrent writes invalidate the result
+            Set<String> tableNames = tables.get();
+            Map<String, Long> tableGenerations = new HashMap<>();
+            for (String table : tableNames) {
+                tableGenerations.put(table, generation(table).get());
+            }
+            List<Object[]> values = new ArrayList<>();
+            long[] valuesWeight = {key.weight()};
+            return rows
+                    .doOnNext(row -> {
+                        if (valuesWeight[0] <= maximumWeight) {
+                            values.add(row);
+                            valuesWeight[0] += estimateWeight(row);
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        if (valuesWeight[0] <= maximumWeight) {
+                            put(key, new Entry(values, tableGenerations, valuesWeight[0],
+                                    System.nanoTime() + timeToLiveNanos));
+                        }
+                    });
+        });
+    }
+
+    private synchronized Entry getEntry(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt >= 0 || !isCurrent(entry)) {
+            remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    private boolean isCurrent(Entry entry) {
+        for (Map.Entry<String, Long> tableGeneration : entry.tableGenerations.entrySet()) {
+            if (generation(tableGeneration.getKey()).get() != tableGeneration.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private synchronized void put(Key key, Entry entry) {
+        if (!isCurrent(entry)) {
+            return;
+        }
+        remove(key);
+        entries.put(key, entry);
+        weight += entry.weight;
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (weight > maximumWeight && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            weight -= eldest.weight;
+            evictionCount.increment();
+        }
+    }
+
+    private void remove(Key key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+    }
+
+    private AtomicLong generation(String table) {
+        return generations.computeIfAbsent(table, t -> new AtomicLong());
+    }
+
+    /**
+     * Invalidate all cached results that are read from the given tables.
+     */
+    public void invalidate(Collection<String> tables) {
+        for (String table : tables) {
+            generation(normalize(table)).incrementAndGet();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "ResultCache{" +
+                "size=" + size() +
+                ", weight=" + getWeight() +
+                ", maximumWeight=" + maximumWeight +
+                ", hitCount=" + getHitCount() +
+                ", missCount=" + getMissCount() +
+                ", evictionCount=" + getEvictionCount() +
+                '}';
+    }
+
+    private static long estimateWeight(Object[] row) {
+        long weight = 16 + 8L * row.length;
+        for (Object value : row) {
+            weight += MemoryBudget.estimateSize(value);
+        }
+        return weight;
+    }
+
+    /**
+     * @return names of all tables the query refers to, including subqueries. Joins, aliases and derived
+     * tables are not named tables themselves, the tables they refer to are visited separately.
+     */
+    static Set<String> getTables(Configuration configuration, QueryPart query) {
+        Set<String> tables = new HashSet<>();
+        VisitListener listener = new DefaultVisitListener() {
+            @Override
+            public void visitStart(VisitContext context) {
+                if (context.queryPart() instanceof TableImpl) {
+                    tables.add(normalize(((Table<?>) context.queryPart()).getName()));
+                }
+            }
+        };
+        DSL.using(configuration.derive(new DefaultVisitListenerProvider(listener))).render(query);
+        return tables;
+    }
+
+    /**
+     * Table names may be rendered case-insensitive, so table names are compared case-insensitive.
+     */
+    private static String normalize(String table) {
+        return table.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Value based key of multiple parts, arrays are compared by content.
+     */
+    static class Key {
+        private final Object[] parts;
+        private final int hashCode;
+
+        Key(Object... parts) {
+            this.parts = parts;
+            this.hashCode = Arrays.deepHashCode(parts);
+        }
+
+        long weight() {
+            return estimateWeight(parts);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.deepEquals(((Key) o).parts, parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class Entry {
+        final List<Object[]> rows;
+        final Map<String, Long> tableGenerations;
+        final long weight;
+        final long expiresAt;
+
+        Entry(List<Object[]> rows, Map<String, Long> tableGenerations, long weight, long expiresAt) {
+            this.rows = rows;
+            this.tableGenerations = tableGenerations;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+}
@@ -0,0 +1,180 @@
+package gofabian.r2dbc.jooq;
+
+import gofabian.r2dbc.jooq.converter.Converter;
+import io.r2dbc.spi.Row;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.TableRecord;
+import org.jooq.exception.MappingException;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+
+/**
+ * Converts R2DBC rows to JOOQ records. All metadata that does not depend on the row is resolved on creation.
+ * <p>
+ * Records are created directly if possible:
+ * - Table records are created by a {@link GeneratedRowMapper} if available and the fields equal the table fields.
+ * - Table records are instantiated and filled without an intermediate record.
+ * - Generic records are returned without copy if they match the record type.
+ * Otherwise an intermediate record is created and copied via {@link Record#into(Class)}.
+ */
+class RowMapper<R extends Record> {
+
+    private final DSLContext dslContext;
+    private final Field<?>[] fields;
+    private final Class<? extends R> recordType;
+    private final ColumnReader columnReader;
+
+    // mapper generated at build time, null if not available
+    private final GeneratedRowMapper<?> generatedRowMapper;
+
+    // direct table record mapping, null if not possible
+    private final Constructor<? extends R> tableRecordConstructor;
+    private final Field<?>[] tableRecordFields;
+    private final int[] tableRecordIndexes;
+
+    private final boolean intermediateRecordIsTarget;
+
+    RowMapper(DSLContext dslContext, Converter converter, Field<?>[] fields, Class<? extends R> recordType) {
+        this.dslContext = dslContext;
+        this.fields = fields;
+        this.recordType = recordType;
+        this.columnReader = new ColumnReader(dslContext.family(), converter, fields);
+
+        Constructor<? extends R> constructor = null;
+        Field<?>[] targetFields = null;
+        int[] targetIndexes = null;
+
+        R prototype = createTableRecordPrototype(recordType);
+        if (prototype != null) {
+            targetFields = prototype.fields();
+            targetIndexes = getTargetIndexes(fields, prototype);
+            if (targetIndexes != null) {
+                constructor = getConstructor(recordType);
+            }
+        }
+
+        GeneratedRowMapper<?> generated = GeneratedRowMappers.get(recordType);
+        this.generatedRowMapper = generated != null && isTableOrder(fields, targetFields, targetIndexes)
+                ? generated : null;
+        this.tableRecordConstructor = constructor;
+        this.tableRecordFields = targetFields;
+        this.tableRecordIndexes = targetIndexes;
+        this.intermediateRecordIsTarget = constructor == null &&
+                recordType.isInstance(dslContext.newRecord(fields));
+    }
+
+    private static <R extends Record> R createTableRecordPrototype(Class<? extends R> recordType) {
+        if (!TableRecord.class.isAssignableFrom(recordType) || Modifier.isAbstract(recordType.getModifiers())) {
+            return null;
+        }
+        Constructor<? extends R> constructor = getConstructor(recordType);
+        if (constructor == null) {
+            return null;
+        }
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            return null;
+        }
+    }
+
+    private static <R extends Record> Constructor<? extends R> getConstructor(Class<? extends R> recordType) {
+        try {
+            Constructor<? extends R> constructor = recordType.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (NoSuchMethodException | SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Find the index of each selected field in the target record. Same lookup as {@link Record#into(Class)}.
+     *
+     * @return indexes or <code>null</code> if any selected field is not part of the target record
+     */
+    private static int[] getTargetIndexes(Field<?>[] fields, Record target) {
+        int[] indexes = new int[fields.length];
+        boolean[] used = new boolean[target.size()];
+        for (int i = 0; i < fields.length; i++) {
+            Field<?> targetField = target.field(fields[i]);
+            int index = targetField == null ? -1 : target.fieldsRow().indexOf(targetField);
+            if (index < 0 || used[index]) {
+                return null;
+            }
+            used[index] = true;
+            indexes[i] = index;
+        }
+        return indexes;
+    }
+
+    /**
+     * @return whether the fields are the target fields in the same order with the same types
+     */
+    private static boolean isTableOrder(Field<?>[] fields, Field<?>[] targetFields, int[] targetIndexes) {
+        if (targetIndexes == null || fields.length != targetFields.length) {
+            return false;
+        }
+        for (int i = 0; i < fields.length; i++) {
+            if (targetIndexes[i] != i || fields[i].getType() != targetFields[i].getType()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    R map(Row row) {
+        if (generatedRowMapper != null) {
+            //noinspection unchecked
+            R record = (R) generatedRowMapper.map(row, columnReader);
+            record.attach(dslContext.configuration());
+            return record;
+        }
+        return toRecord(readValues(row));
+    }
+
+    Object[] readValues(Row row) {
+        return columnReader.readValues(row);
+    }
+
+    R toRecord(Object[] values) {
+        if (tableRecordConstructor != null) {
+            return toTableRecord(values);
+        }
+
+        // create intermediate record
+        Record record = dslContext.newRecord(fields);
+        record.fromArray(values);
+        record.changed(false);
+
+        if (intermediateRecordIsTarget) {
+            //noinspection unchecked
+            return (R) record;
+        }
+        return record.into(recordType);
+    }
+
+    private R toTableRecord(Object[] values) {
+        R record;
+        try {
+            record = tableRecordConstructor.newInstance();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new MappingException("Cannot create instance of " + recordType, e);
+        }
+        record.attach(dslContext.configuration());
+
+        Object[] targetValues = new Object[tableRecordFields.length];
+        for (int i = 0; i < values.length; i++) {
+            int index = tableRecordIndexes[i];
+            targetValues[index] = tableRecordFields[index].getDataType().convert(values[i]);
+        }
+        record.fromArray(targetValues);
+        record.changed(false);
+        return record;
+    }
+
+}
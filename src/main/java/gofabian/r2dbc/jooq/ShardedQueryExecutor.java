@@ -0,0 +1,187 @@
+package gofabian.r2dbc.jooq;
+
+import gofabian.r2dbc.jooq.converter.Converter;
+import org.jooq.*;
+import org.jooq.conf.Settings;
+import org.reactivestreams.Publisher;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Executes queries on shards, i. e. databases with the same schema that contain different rows, e. g. partitioned by
+ * tenant. Each shard is accessed via a {@link ReactiveQueryExecutor}.
+ * <p>
+ * Queries with shard key are executed on the shard the key is mapped to, see {@link #shard(Object)}. Selects without
+ * shard key are executed on all shards, the results are merged by the ORDER BY clause of the select. A LIMIT clause is
+ * applied to each shard and to the merged result. An OFFSET clause cannot be applied to the merged result. Other queries
+ * need a shard key, except for {@link #executeOnAllShards(Query)}.
+ */
+public class ShardedQueryExecutor {
+
+    private final DSLContext dslContext;
+    private final List<ReactiveQueryExecutor> shards;
+
+    public ShardedQueryExecutor(DSLContext dslContext, List<DatabaseClient> databaseClients, Converter converter) {
+        this(dslContext, databaseClients, converter, null);
+    }
+
+    public ShardedQueryExecutor(DSLContext dslContext, List<DatabaseClient> databaseClients, Converter converter,
+                                SqlCache sqlCache) {
+        if (databaseClients.isEmpty()) {
+            throw new IllegalArgumentException("databaseClients must not be empty");
+        }
+        this.dslContext = Objects.requireNonNull(dslContext);
+        List<ReactiveQueryExecutor> shards = new ArrayList<>();
+        for (DatabaseClient databaseClient : databaseClients) {
+            shards.add(new ReactiveQueryExecutor(dslContext, databaseClient, converter, sqlCache));
+        }
+        this.shards = Collections.unmodifiableList(shards);
+    }
+
+    public static ShardedQueryExecutor from(DSLContext dslContext, List<DatabaseClient> databaseClients) {
+        Configuration configuration = dslContext.configuration();
+        Converter converter = (Converter) configuration.data("converter");
+        SqlCache sqlCache = (SqlCache) configuration.data("sqlCache");
+        return new ShardedQueryExecutor(dslContext, databaseClients, converter, sqlCache);
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    /**
+     * @return index of the shard the key is mapped to, derived from {@link Object#hashCode()}
+     */
+    public int getShardIndex(Object shardKey) {
+        return Math.floorMod(Objects.hashCode(shardKey), shards.size());
+    }
+
+    /**
+     * @return executor of the shard the key is mapped to
+     */
+    public ReactiveQueryExecutor shard(Object shardKey) {
+        return shards.get(getShardIndex(shardKey));
+    }
+
+    /**
+     * Execute the query on each shard, e. g. DDL statements. Use {@link #shard(Object)} to write rows: an INSERT
+     * executed here inserts its rows into every shard.
+     *
+     * @return total update count
+     */
+    @Support
+    public Mono<Integer> executeOnAllShards(Query jooqQuery) {
+        return Flux.fromIterable(shards)
+                .flatMap(shard -> shard.execute(jooqQuery))
+                .reduce(0, Integer::sum);
+    }
+
+    /**
+     * Fetch records from all shards. If the select is ordered, the records of the shards are merged in that order.
+     * Otherwise the records are merged in no particular order.
+     * <p>
+     * The order is evaluated by comparing the values of the records, so all ORDER BY fields must be selected. Strings
+     * are compared by {@link String#compareTo(String)} which may differ from the collation of the database.
+     */
+    @Support
+    public <R extends Record> Flux<R> fetch(Select<R> jooqQuery) {
+        if (JooqInternals.hasSelectOffset(jooqQuery)) {
+            throw new IllegalArgumentException("OFFSET cannot be applied to the merged result of shards");
+        }
+        List<Flux<R>> results = new ArrayList<>();
+        for (ReactiveQueryExecutor shard : shards) {
+            results.add(shard.fetch(jooqQuery));
+        }
+
+        Flux<R> merged;
+        List<SortField<?>> orderBy = JooqInternals.getSelectOrderBy(jooqQuery);
+        if (orderBy.isEmpty()) {
+            merged = Flux.merge(results);
+        } else {
+            Comparator<R> comparator = createComparator(jooqQuery.getSelect(), orderBy, dslContext.family());
+            merged = Flux.mergeOrdered(comparator, toArray(results));
+        }
+
+        int limit = limit(JooqInternals.getSelectLimit(jooqQuery),
+                ReactiveQueryExecutor.getMaxRows(jooqQuery, dslContext.settings()));
+        return limit > 0 ? merged.take(limit) : merged;
+    }
+
+    /**
+     * @return smaller limit of LIMIT clause and max rows, see {@link Settings#getMaxRows()}, or 0 for no limit
+     */
+    private static int limit(int limit, int maxRows) {
+        if (limit <= 0 || maxRows <= 0) {
+            return Math.max(limit, maxRows);
+        }
+        return Math.min(limit, maxRows);
+    }
+
+    /**
+     * Count the records of all shards.
+     */
+    @Support
+    public Mono<Integer> fetchCount(Select<?> jooqQuery) {
+        return Flux.fromIterable(shards)
+                .flatMap(shard -> shard.fetchCount(jooqQuery))
+                .reduce(0, Integer::sum);
+    }
+
+    /**
+     * Compare records like the database orders them by the given sort fields.
+     */
+    static <R extends Record> Comparator<R> createComparator(List<Field<?>> fields, List<SortField<?>> orderBy,
+                                                             SQLDialect family) {
+        // PostgreSQL orders NULL values like larger values by default, H2 and MySQL like smaller values
+        boolean nullsLargeByDefault = family == SQLDialect.POSTGRES;
+
+        Comparator<R> comparator = (a, b) -> 0;
+        for (SortField<?> sortField : orderBy) {
+            int index = indexOf(fields, sortField.getName());
+            boolean descending = sortField.getOrder() == SortOrder.DESC;
+            Boolean nullsFirst = JooqInternals.getNullsFirst(sortField);
+            if (nullsFirst == null) {
+                nullsFirst = nullsLargeByDefault == descending;
+            }
+            Comparator<Object> valueComparator = ShardedQueryExecutor::compareValues;
+            if (descending) {
+                valueComparator = valueComparator.reversed();
+            }
+            valueComparator = nullsFirst
+                    ? Comparator.nullsFirst(valueComparator)
+                    : Comparator.nullsLast(valueComparator);
+            comparator = comparator.thenComparing(record -> record.get(index), valueComparator);
+        }
+        return comparator;
+    }
+
+    /**
+     * Compare non-null values of the same field, they are comparable to each other.
+     */
+    @SuppressWarnings("unchecked")
+    private static int compareValues(Object a, Object b) {
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Publisher<? extends T>[] toArray(List<? extends Publisher<? extends T>> publishers) {
+        return publishers.toArray((Publisher<? extends T>[]) new Publisher<?>[publishers.size()]);
+    }
+
+    private static int indexOf(List<Field<?>> fields, String name) {
+        for (int i = 0; i < fields.size(); i++) {
+            if (fields.get(i).getName().equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("ORDER BY field must be selected to merge the results of shards: " + name);
+    }
+
+}
@@ -0,0 +1,76 @@
+package gofabian.r2dbc.jooq;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import org.reactivestreams.Publisher;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Executes statements concurrently on separate connections that see the same data. The snapshot of a PostgreSQL
+ * transaction is exported via <code>pg_export_snapshot()</code> and imported by a repeatable read transaction per
+ * statement. The exporting transaction is kept open until all statements completed.
+ * <p>
+ * Each statement and the exporting transaction need a connection of their own at the same time.
+ */
+class SharedSnapshot {
+
+    private static final String REPEATABLE_READ = "SET TRANSACTION ISOLATION LEVEL REPEATABLE READ";
+
+    private SharedSnapshot() {
+    }
+
+    /**
+     * @param concurrency maximum number of concurrent executions
+     * @param executions  determines the executions with the database client of the exporting transaction, i. e. it
+     *                    sees the snapshot, too
+     * @param execution   executes the statements of the given execution with the given database client
+     */
+    static <E, T> Flux<T> execute(ConnectionFactory connectionFactory, int concurrency,
+                                  Function<DatabaseClient, ? extends Publisher<E>> executions,
+                                  BiFunction<E, DatabaseClient, ? extends Publisher<T>> execution) {
+        return inTransaction(connectionFactory, exporter -> statement(exporter, REPEATABLE_READ)
+                .then(Flux.from(exporter.createStatement("SELECT pg_export_snapshot()").execute())
+                        .concatMap(result -> result.map((row, metadata) -> row.get(0, String.class)))
+                        .next())
+                .flatMapMany(snapshotId -> Flux.from(executions.apply(
+                        QueryCancellation.pin(exporter, connectionFactory)))
+                        .collectList()
+                        .flatMapMany(Flux::fromIterable)
+                        .flatMap(value -> inTransaction(connectionFactory, connection ->
+                                statement(connection, REPEATABLE_READ)
+                                        .then(statement(connection, "SET TRANSACTION SNAPSHOT '" +
+                                                snapshotId.replace("'", "''") + "'"))
+                                        .thenMany(Flux.defer(() -> execution.apply(value,
+                                                QueryCancellation.pin(connection, connectionFactory))))
+                        ), concurrency)));
+    }
+
+    private static <T> Flux<T> inTransaction(ConnectionFactory connectionFactory,
+                                             Function<Connection, Flux<T>> work) {
+        return Flux.usingWhen(
+                connectionFactory.create(),
+                connection -> Mono.from(connection.beginTransaction()).thenMany(work.apply(connection)),
+                connection -> Mono.from(connection.commitTransaction()).then(Mono.from(connection.close())),
+                (connection, error) -> rollbackAndClose(connection),
+                SharedSnapshot::rollbackAndClose);
+    }
+
+    private static Mono<Void> rollbackAndClose(Connection connection) {
+        return Mono.from(connection.rollbackTransaction())
+                .onErrorResume(e -> Mono.empty())
+                .then(Mono.from(connection.close()));
+    }
+
+    private static Mono<Void> statement(Connection connection, String sql) {
+        return Flux.from(connection.createStatement(sql).execute())
+                .concatMap(Result::getRowsUpdated)
+                .then();
+    }
+
+}
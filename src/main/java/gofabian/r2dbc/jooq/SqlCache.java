@@ -0,0 +1,252 @@
+package gofabian.r2dbc.jooq;
+
+import org.jooq.Configuration;
+import org.jooq.Param;
+import org.jooq.Query;
+import org.jooq.conf.ParamType;
+import org.jooq.conf.Settings;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache for rendered SQL strings per query shape.
+ * <p>
+ * Queries are identified by their structure, the SQL dialect and the settings, but not by the values of their bind
+ * parameters, see {@link QueryShape}. So a query that is built anew on each call is rendered once, later executions
+ * only visit the query to find its shape and bind values. If more shapes than the maximum size are cached, an arbitrary
+ * shape is evicted. Equal SQL strings of different shapes are interned, so each distinct SQL string is kept only once.
+ * <p>
+ * The cache keeps data types and inlined values of the cached shapes, but no bind values. It is disabled by default.
+ * Enable it like that:
+ * <pre>
+ *     dslContext.configuration().data("sqlCache", new SqlCache(1000));
+ * </pre>
+ */
+public class SqlCache {
+
+    private final int maximumSize;
+    private final ConcurrentMap<QueryShape, Rendering> renderings = new ConcurrentHashMap<>();
+    private final Map<String, WeakReference<String>> internedSql = new WeakHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public SqlCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Get SQL string with named parameters from cache or render it.
+     */
+    public String getSql(Query query, Configuration configuration) {
+        return getEntry(query, configuration).sql;
+    }
+
+    /**
+     * @return entry with SQL string and bind parameters of the query, rendered on a miss
+     */
+    Entry getEntry(Query query, Configuration configuration) {
+        List<Param<?>> shapeParams = new ArrayList<>();
+        QueryShape shape = QueryShape.of(query, configuration.dialect(), shapeParams);
+        Settings settings = configuration.settings();
+        Rendering rendering = renderings.get(shape);
+        if (rendering != null && rendering.settings.equals(settings)) {
+            hitCount.increment();
+            return new Entry(rendering, rendering.getBindParams(query, shapeParams));
+        }
+
+        missCount.increment();
+        List<Param<?>> bindParams = getBindParams(query);
+        Rendering rendered = new Rendering(intern(query.getSQL(ParamType.NAMED)), (Settings) settings.clone(),
+                getBindOrder(bindParams, shapeParams));
+        if (rendering == null) {
+            if (renderings.putIfAbsent(shape, rendered) == null) {
+                evict(shape);
+            }
+        } else {
+            renderings.replace(shape, rendering, rendered);
+        }
+        return new Entry(rendered, bindParams);
+    }
+
+    /**
+     * @return bind parameters in the order of the SQL string
+     */
+    private static List<Param<?>> getBindParams(Query query) {
+        List<Param<?>> bindParams = new ArrayList<>();
+        for (Param<?> param : query.getParams().values()) {
+            if (param.getParamType() != ParamType.INLINED) {
+                bindParams.add(param);
+            }
+        }
+        return bindParams;
+    }
+
+    /**
+     * @return index of each bind parameter in the parameters of the shape or <code>null</code> if a bind parameter is
+     * not part of the shape, e. g. because it is created while rendering
+     */
+    private static int[] getBindOrder(List<Param<?>> bindParams, List<Param<?>> shapeParams) {
+        Map<Param<?>, Integer> shapeIndexes = new IdentityHashMap<>();
+        for (int i = 0; i < shapeParams.size(); i++) {
+            shapeIndexes.putIfAbsent(shapeParams.get(i), i);
+        }
+        int[] bindOrder = new int[bindParams.size()];
+        for (int i = 0; i < bindOrder.length; i++) {
+            Integer index = shapeIndexes.get(bindParams.get(i));
+            if (index == null) {
+                return null;
+            }
+            bindOrder[i] = index;
+        }
+        return bindOrder;
+    }
+
+    private void evict(QueryShape added) {
+        Iterator<QueryShape> iterator = renderings.keySet().iterator();
+        while (renderings.size() > maximumSize && iterator.hasNext()) {
+            if (!iterator.next().equals(added)) {
+                iterator.remove();
+                evictionCount.increment();
+            }
+        }
+    }
+
+    private String intern(String sql) {
+        synchronized (internedSql) {
+            WeakReference<String> reference = internedSql.get(sql);
+            String interned = reference == null ? null : reference.get();
+            if (interned != null) {
+                return interned;
+            }
+            internedSql.put(sql, new WeakReference<>(sql));
+            return sql;
+        }
+    }
+
+    public void clear() {
+        renderings.clear();
+        synchronized (internedSql) {
+            internedSql.clear();
+        }
+    }
+
+    public int size() {
+        return renderings.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "SqlCache{" +
+                "size=" + size() +
+                ", maximumSize=" + maximumSize +
+                ", hitCount=" + getHitCount() +
+                ", missCount=" + getMissCount() +
+                ", evictionCount=" + getEvictionCount() +
+                '}';
+    }
+
+    /**
+     * Rendering of a query shape, shared by all queries of that shape.
+     */
+    private static class Rendering {
+        final String sql;
+        final Settings settings;
+        final int[] bindOrder;
+
+        /**
+         * Set lazily by the executor.
+         */
+        volatile BindingPlan bindingPlan;
+        volatile RowMapper<?> rowMapper;
+
+        Rendering(String sql, Settings settings, int[] bindOrder) {
+            this.sql = sql;
+            this.settings = settings;
+            this.bindOrder = bindOrder;
+        }
+
+        List<Param<?>> getBindParams(Query query, List<Param<?>> shapeParams) {
+            if (bindOrder == null) {
+                return SqlCache.getBindParams(query);
+            }
+            List<Param<?>> bindParams = new ArrayList<>(bindOrder.length);
+            for (int index : bindOrder) {
+                bindParams.add(shapeParams.get(index));
+            }
+            return bindParams;
+        }
+    }
+
+    /**
+     * SQL string and bind parameters of a query.
+     */
+    static class Entry {
+        final String sql;
+        /**
+         * Bind parameters in the order of the SQL string, inlined parameters are excluded.
+         */
+        final List<Param<?>> bindParams;
+        private final Rendering rendering;
+
+        Entry(Rendering rendering, List<Param<?>> bindParams) {
+            this.sql = rendering.sql;
+            this.bindParams = bindParams;
+            this.rendering = rendering;
+        }
+
+        Object[] getBindValues() {
+            Object[] values = new Object[bindParams.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = bindParams.get(i).getValue();
+            }
+            return values;
+        }
+
+        BindingPlan getBindingPlan() {
+            return rendering.bindingPlan;
+        }
+
+        void setBindingPlan(BindingPlan bindingPlan) {
+            rendering.bindingPlan = bindingPlan;
+        }
+
+        RowMapper<?> getRowMapper() {
+            return rendering.rowMapper;
+        }
+
+        void setRowMapper(RowMapper<?> rowMapper) {
+            rendering.rowMapper = rowMapper;
+        }
+    }
+
+}
@@ -0,0 +1,236 @@
+package gofabian.r2dbc.jooq;
+
+import org.jooq.TableRecord;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Inserts a stream of records in batches. A batch is inserted when it reaches the maximum size or when its first
+ * record waited for the maximum latency.
+ * <p>
+ * The stream is backpressured: at most one batch is inserted at a time, at most <code>maxSize</code> records are
+ * buffered or requested from upstream, and new records are requested only after a batch has been inserted and the
+ * downstream requested more batch results. <code>Flux.bufferTimeout()</code> is not used as it ignores backpressure.
+ */
+class StreamingInsert {
+
+    private StreamingInsert() {
+    }
+
+    /**
+     * @return insert count per batch
+     */
+    static Flux<Integer> create(Publisher<? extends TableRecord<?>> records, int maxSize, Duration maxLatency,
+                                Function<List<TableRecord<?>>, Mono<Integer>> insertBatch) {
+        checkArguments(maxSize, maxLatency);
+        return Flux.create(sink -> {
+            BatchingSubscriber subscriber = new BatchingSubscriber(sink, maxSize, maxLatency.toNanos(), insertBatch);
+            sink.onRequest(subscriber::onDownstreamRequest);
+            sink.onDispose(subscriber::dispose);
+            records.subscribe(subscriber);
+        });
+    }
+
+    static void checkArguments(int maxSize, Duration maxLatency) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        if (maxLatency.isNegative() || maxLatency.isZero()) {
+            throw new IllegalArgumentException("maxLatency must be positive: " + maxLatency);
+        }
+    }
+
+    private static class BatchingSubscriber extends BaseSubscriber<TableRecord<?>> {
+
+        private final FluxSink<Integer> sink;
+        private final int maxSize;
+        private final long maxLatencyNanos;
+        private final Function<List<TableRecord<?>>, Mono<Integer>> insertBatch;
+        private final Scheduler timerScheduler = Schedulers.parallel();
+
+        // guarded by this
+        private List<TableRecord<?>> buffer = new ArrayList<>();
+        private long downstreamDemand;
+        private int upstreamOutstanding;
+        private boolean insertInFlight;
+        private boolean latencyExpired;
+        private long batchNumber;
+        private boolean subscribed;
+        private boolean upstreamDone;
+        private boolean terminated;
+        private Disposable timer;
+        private Disposable insert;
+
+        BatchingSubscriber(FluxSink<Integer> sink, int maxSize, long maxLatencyNanos,
+                           Function<List<TableRecord<?>>, Mono<Integer>> insertBatch) {
+            this.sink = sink;
+            this.maxSize = maxSize;
+            this.maxLatencyNanos = maxLatencyNanos;
+            this.insertBatch = insertBatch;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            synchronized (this) {
+                subscribed = true;
+                requestMore();
+            }
+        }
+
+        @Override
+        protected void hookOnNext(TableRecord<?> record) {
+            synchronized (this) {
+                if (terminated) {
+                    return;
+                }
+                upstreamOutstanding--;
+                buffer.add(record);
+                if (buffer.size() == 1) {
+                    latencyExpired = false;
+                    long currentBatchNumber = batchNumber;
+                    timer = timerScheduler.schedule(() -> onLatencyExpired(currentBatchNumber), maxLatencyNanos,
+                            TimeUnit.NANOSECONDS);
+                }
+                drain();
+            }
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            synchronized (this) {
+                upstreamDone = true;
+                drain();
+            }
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            fail(throwable);
+        }
+
+        void onDownstreamRequest(long n) {
+            synchronized (this) {
+                downstreamDemand = addCap(downstreamDemand, n);
+                drain();
+            }
+        }
+
+        private void onLatencyExpired(long expiredBatchNumber) {
+            synchronized (this) {
+                if (expiredBatchNumber != batchNumber) {
+                    // timer of a batch that has already been inserted
+                    return;
+                }
+                latencyExpired = true;
+                drain();
+            }
+        }
+
+        private void onInsertSuccess(Integer count) {
+            synchronized (this) {
+                if (terminated) {
+                    return;
+                }
+                sink.next(count);
+            }
+        }
+
+        private void onInsertComplete() {
+            synchronized (this) {
+                insertInFlight = false;
+                drain();
+            }
+        }
+
+        /**
+         * Insert the buffered records if the batch is ready, complete if everything is inserted, otherwise request
+         * more records from upstream.
+         */
+        private void drain() {
+            if (terminated || insertInFlight) {
+                return;
+            }
+
+            boolean batchReady = buffer.size() >= maxSize || (!buffer.isEmpty() && (latencyExpired || upstreamDone));
+            if (batchReady && downstreamDemand > 0) {
+                List<TableRecord<?>> batch = buffer;
+                buffer = new ArrayList<>();
+                if (timer != null) {
+                    timer.dispose();
+                    timer = null;
+                }
+                latencyExpired = false;
+                batchNumber++;
+                downstreamDemand--;
+                insertInFlight = true;
+                insert = insertBatch.apply(batch)
+                        .contextWrite(sink.currentContext())
+                        .subscribe(this::onInsertSuccess, this::fail, this::onInsertComplete);
+                return;
+            }
+
+            if (upstreamDone && buffer.isEmpty()) {
+                terminated = true;
+                sink.complete();
+                return;
+            }
+
+            if (!batchReady) {
+                requestMore();
+            }
+        }
+
+        private void requestMore() {
+            int n = maxSize - buffer.size() - upstreamOutstanding;
+            if (n > 0 && subscribed && !upstreamDone) {
+                upstreamOutstanding += n;
+                request(n);
+            }
+        }
+
+        private void fail(Throwable throwable) {
+            synchronized (this) {
+                if (terminated) {
+                    return;
+                }
+                terminated = true;
+            }
+            dispose();
+            sink.error(throwable);
+        }
+
+        @Override
+        public void dispose() {
+            synchronized (this) {
+                terminated = true;
+                if (timer != null) {
+                    timer.dispose();
+                }
+                if (insert != null) {
+                    insert.dispose();
+                }
+                buffer.clear();
+            }
+            super.dispose();
+        }
+
+        private static long addCap(long a, long b) {
+            long sum = a + b;
+            return sum < 0 ? Long.MAX_VALUE : sum;
+        }
+    }
+
+}
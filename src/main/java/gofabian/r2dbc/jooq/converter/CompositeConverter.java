@@ -1,37 +1,187 @@
 package gofabian.r2dbc.jooq.converter;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chain of converters. The output of a converter is the input of the next converter.
+ * <p>
+ * The converters that apply to a value type are resolved once per type and cached, see
+ * {@link Converter#convertsToJooq(Class, Class)} and {@link Converter#convertsToR2dbc(Class)}. Values of types that
+ * no converter applies to are returned without calling any converter. Nested composite converters are flattened.
+ */
 public class CompositeConverter implements Converter {
 
+    private static final Converter IDENTITY = new IdentityConverter();
+
     private final Converter[] converters;
 
+    private final Map<Class<?>, Map<Class<?>, Converter>> toJooqConverters = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Converter> toR2dbcConverters = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Class<?>> r2dbcTypes = new ConcurrentHashMap<>();
+
     public CompositeConverter(Converter[] converters) {
-        this.converters = converters;
+        this.converters = flatten(converters);
+    }
+
+    private static Converter[] flatten(Converter[] converters) {
+        List<Converter> list = new ArrayList<>();
+        for (Converter converter : converters) {
+            if (converter instanceof CompositeConverter) {
+                list.addAll(Arrays.asList(((CompositeConverter) converter).converters));
+            } else {
+                list.add(converter);
+            }
+        }
+        return list.toArray(new Converter[0]);
     }
 
     @Override
     public Object toJooqValue(Object r2dbcValue, Class<?> targetJooqType) {
-        Object value = r2dbcValue;
-        for (Converter converter : converters) {
-            value = converter.toJooqValue(value, targetJooqType);
+        Class<?> r2dbcType = r2dbcValue == null ? Void.class : r2dbcValue.getClass();
+        Converter converter = getToJooqConverter(r2dbcType, targetJooqType);
+        if (converter == IDENTITY) {
+            return r2dbcValue;
         }
-        return value;
+        return converter.toJooqValue(r2dbcValue, targetJooqType);
     }
 
     @Override
     public Object toR2dbcValue(Object jooqValue) {
-        Object value = jooqValue;
-        for (Converter converter : converters) {
-            value = converter.toR2dbcValue(value);
+        Class<?> jooqType = jooqValue == null ? Void.class : jooqValue.getClass();
+        Converter converter = getToR2dbcConverter(jooqType);
+        if (converter == IDENTITY) {
+            return jooqValue;
         }
-        return value;
+        return converter.toR2dbcValue(jooqValue);
     }
 
     @Override
     public Class<?> toR2dbcType(Class<?> jooqType) {
-        Class<?> type = jooqType;
-        for (Converter converter : converters) {
-            type = converter.toR2dbcType(type);
+        Class<?> r2dbcType = r2dbcTypes.get(jooqType);
+        if (r2dbcType == null) {
+            r2dbcType = r2dbcTypes.computeIfAbsent(jooqType, t -> {
+                Class<?> type = t;
+                for (Converter converter : converters) {
+                    type = converter.toR2dbcType(type);
+                }
+                return type;
+            });
+        }
+        return r2dbcType;
+    }
+
+    @Override
+    public boolean convertsToJooq(Class<?> r2dbcType, Class<?> targetJooqType) {
+        return getToJooqConverter(r2dbcType, targetJooqType) != IDENTITY;
+    }
+
+    @Override
+    public boolean convertsToR2dbc(Class<?> jooqType) {
+        return getToR2dbcConverter(jooqType) != IDENTITY;
+    }
+
+    private Converter getToJooqConverter(Class<?> r2dbcType, Class<?> targetJooqType) {
+        Map<Class<?>, Converter> byTargetType = toJooqConverters.get(r2dbcType);
+        if (byTargetType == null) {
+            byTargetType = toJooqConverters.computeIfAbsent(r2dbcType, t -> new ConcurrentHashMap<>());
+        }
+        Converter converter = byTargetType.get(targetJooqType);
+        if (converter == null) {
+            converter = byTargetType.computeIfAbsent(targetJooqType, t -> resolveToJooq(r2dbcType, t));
+        }
+        return converter;
+    }
+
+    private Converter getToR2dbcConverter(Class<?> jooqType) {
+        Converter converter = toR2dbcConverters.get(jooqType);
+        if (converter == null) {
+            converter = toR2dbcConverters.computeIfAbsent(jooqType, this::resolveToR2dbc);
+        }
+        return converter;
+    }
+
+    /**
+     * The first converter that applies to the type and all following converters are relevant. The following
+     * converters must be kept because the type may have changed.
+     */
+    private Converter resolveToJooq(Class<?> r2dbcType, Class<?> targetJooqType) {
+        for (int i = 0; i < converters.length; i++) {
+            if (converters[i].convertsToJooq(r2dbcType, targetJooqType)) {
+                return chain(i);
+            }
+        }
+        return IDENTITY;
+    }
+
+    private Converter resolveToR2dbc(Class<?> jooqType) {
+        for (int i = 0; i < converters.length; i++) {
+            if (converters[i].convertsToR2dbc(jooqType)) {
+                return chain(i);
+            }
+        }
+        return IDENTITY;
+    }
+
+    private Converter chain(int fromIndex) {
+        if (fromIndex == converters.length - 1) {
+            return converters[fromIndex];
+        }
+        return new ChainConverter(Arrays.copyOfRange(converters, fromIndex, converters.length));
+    }
+
+    private static class IdentityConverter implements Converter {
+        @Override
+        public Object toJooqValue(Object r2dbcValue, Class<?> targetJooqType) {
+            return r2dbcValue;
+        }
+
+        @Override
+        public Object toR2dbcValue(Object jooqValue) {
+            return jooqValue;
+        }
+
+        @Override
+        public Class<?> toR2dbcType(Class<?> jooqType) {
+            return jooqType;
+        }
+    }
+
+    private static class ChainConverter implements Converter {
+        private final Converter[] converters;
+
+        ChainConverter(Converter[] converters) {
+            this.converters = converters;
+        }
+
+        @Override
+        public Object toJooqValue(Object r2dbcValue, Class<?> targetJooqType) {
+            Object value = r2dbcValue;
+            for (Converter converter : converters) {
+                value = converter.toJooqValue(value, targetJooqType);
+            }
+            return value;
+        }
+
+        @Override
+        public Object toR2dbcValue(Object jooqValue) {
+            Object value = jooqValue;
+            for (Converter converter : converters) {
+                value = converter.toR2dbcValue(value);
+            }
+            return value;
+        }
+
+        @Override
+        public Class<?> toR2dbcType(Class<?> jooqType) {
+            Class<?> type = jooqType;
+            for (Converter converter : converters) {
+                type = converter.toR2dbcType(type);
+            }
+            return type;
         }
-        return type;
     }
 }
@@ -8,4 +8,21 @@ public interface Converter {
 
     Class<?> toR2dbcType(Class<?> jooqType);
 
+    /**
+     * Whether {@link #toJooqValue(Object, Class)} may change R2DBC values of the given type. Return <code>false</code>
+     * if values are returned unchanged, so the converter can be skipped for this type. <code>r2dbcType</code> is
+     * {@link Void} for <code>null</code> values.
+     */
+    default boolean convertsToJooq(Class<?> r2dbcType, Class<?> targetJooqType) {
+        return true;
+    }
+
+    /**
+     * Whether {@link #toR2dbcValue(Object)} may change JOOQ values of the given type. Return <code>false</code> if
+     * values are returned unchanged, so the converter can be skipped for this type.
+     */
+    default boolean convertsToR2dbc(Class<?> jooqType) {
+        return true;
+    }
+
 }
@@ -30,4 +30,14 @@ public class JsonConverter implements Converter {
         return sourceJooqType;
     }
 
+    @Override
+    public boolean convertsToJooq(Class<?> r2dbcType, Class<?> targetJooqType) {
+        return false;
+    }
+
+    @Override
+    public boolean convertsToR2dbc(Class<?> jooqType) {
+        return jooqType == JSON.class || jooqType == JSONB.class;
+    }
+
 }
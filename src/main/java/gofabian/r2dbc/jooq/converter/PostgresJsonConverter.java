@@ -22,4 +22,14 @@ public class PostgresJsonConverter implements Converter {
         return sourceJooqType;
     }
 
+    @Override
+    public boolean convertsToJooq(Class<?> r2dbcType, Class<?> targetJooqType) {
+        return Json.class.isAssignableFrom(r2dbcType);
+    }
+
+    @Override
+    public boolean convertsToR2dbc(Class<?> jooqType) {
+        return false;
+    }
+
 }
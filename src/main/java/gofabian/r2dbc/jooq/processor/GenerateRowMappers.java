@@ -0,0 +1,23 @@
+package gofabian.r2dbc.jooq.processor;
+
+import org.jooq.Table;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generate a {@link gofabian.r2dbc.jooq.GeneratedRowMapper} for each of the given JOOQ tables at build time. The
+ * annotation is processed by {@link RowMapperProcessor}.
+ * <p>
+ * The tables must be generated by JOOQ, i. e. have a public static singleton field and a public field for each table
+ * field in column order. The records must have a public no-arg constructor.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target({ElementType.TYPE, ElementType.PACKAGE})
+public @interface GenerateRowMappers {
+
+    Class<? extends Table<?>>[] value();
+
+}
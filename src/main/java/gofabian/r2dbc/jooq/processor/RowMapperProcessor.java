@@ -0,0 +1,237 @@
+package gofabian.r2dbc.jooq.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Annotation processor for {@link GenerateRowMappers}. Generates a {@link gofabian.r2dbc.jooq.GeneratedRowMapper}
+ * without reflection for each table and registers it in
+ * <code>META-INF/services/gofabian.r2dbc.jooq.GeneratedRowMapper</code>.
+ * <p>
+ * The processor is not registered automatically. Add it to the compiler configuration, e. g. via the
+ * <code>annotationProcessors</code> option of the maven-compiler-plugin.
+ */
+@SupportedAnnotationTypes(RowMapperProcessor.ANNOTATION)
+public class RowMapperProcessor extends AbstractProcessor {
+
+    static final String ANNOTATION = "gofabian.r2dbc.jooq.processor.GenerateRowMappers";
+    private static final String MAPPER_INTERFACE = "gofabian.r2dbc.jooq.GeneratedRowMapper";
+    private static final int MAX_RECORD_DEGREE = 22;
+
+    private final Set<String> generatedMappers = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeServiceFile();
+            return false;
+        }
+
+        TypeElement annotation = processingEnv.getElementUtils().getTypeElement(ANNOTATION);
+        if (annotation == null) {
+            return false;
+        }
+        for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            for (TypeElement table : getTables(element)) {
+                try {
+                    generateMapper(table, element);
+                } catch (IllegalArgumentException e) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                            "Cannot generate row mapper for " + table + ": " + e.getMessage(), element);
+                } catch (IOException e) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                            "Cannot write row mapper for " + table + ": " + e, element);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read tables from annotation mirror, the classes may not be compiled yet.
+     */
+    private List<TypeElement> getTables(Element element) {
+        List<TypeElement> tables = new ArrayList<>();
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (!annotationType.getQualifiedName().contentEquals(ANNOTATION)) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                    mirror.getElementValues().entrySet()) {
+                if (!entry.getKey().getSimpleName().contentEquals("value")) {
+                    continue;
+                }
+                @SuppressWarnings("unchecked")
+                List<? extends AnnotationValue> values = (List<? extends AnnotationValue>) entry.getValue().getValue();
+                for (AnnotationValue value : values) {
+                    DeclaredType type = (DeclaredType) value.getValue();
+                    tables.add((TypeElement) type.asElement());
+                }
+            }
+        }
+        return tables;
+    }
+
+    private void generateMapper(TypeElement table, Element originatingElement) throws IOException {
+        String tableType = table.getQualifiedName().toString();
+        String singleton = findSingleton(table);
+        List<VariableElement> fields = findTableFields(table);
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("no public table fields found");
+        }
+
+        TypeMirror recordMirror = getTypeArguments(table.asType(), "org.jooq.Table").get(0);
+        TypeElement record = (TypeElement) processingEnv.getTypeUtils().asElement(recordMirror);
+        if (!hasPublicNoArgConstructor(record)) {
+            throw new IllegalArgumentException(record + " has no public no-arg constructor");
+        }
+        String recordType = record.getQualifiedName().toString();
+        boolean valueSetters = implementsRecordDegree(recordMirror, fields.size());
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(table).getQualifiedName().toString();
+        String mapperName = table.getSimpleName() + "RowMapper";
+        String mapperType = packageName.isEmpty() ? mapperName : packageName + "." + mapperName;
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(mapperType, table, originatingElement);
+        try (PrintWriter out = new PrintWriter(file.openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("/**");
+            out.println(" * Generated by " + RowMapperProcessor.class.getName() + ". Do not edit.");
+            out.println(" */");
+            out.println("public final class " + mapperName + " implements " + MAPPER_INTERFACE + "<" + recordType + "> {");
+            out.println();
+            out.println("    @Override");
+            out.println("    public org.jooq.Table<" + recordType + "> getTable() {");
+            out.println("        return " + tableType + "." + singleton + ";");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    @SuppressWarnings(\"unchecked\")");
+            out.println("    public " + recordType + " map(io.r2dbc.spi.Row row, " + MAPPER_INTERFACE +
+                    ".ValueReader valueReader) {");
+            out.println("        " + recordType + " record = new " + recordType + "();");
+            for (int i = 0; i < fields.size(); i++) {
+                VariableElement field = fields.get(i);
+                TypeMirror valueType = getTypeArguments(field.asType(), "org.jooq.TableField").get(1);
+                String cast = "(" + processingEnv.getTypeUtils().erasure(valueType) + ") valueReader.read(row, " +
+                        i + ")";
+                if (valueSetters) {
+                    out.println("        record.value" + (i + 1) + "(" + cast + ");");
+                } else {
+                    out.println("        record.set(" + tableType + "." + singleton + "." + field.getSimpleName() +
+                            ", " + cast + ");");
+                }
+            }
+            out.println("        record.changed(false);");
+            out.println("        return record;");
+            out.println("    }");
+            out.println();
+            out.println("}");
+        }
+        generatedMappers.add(mapperType);
+    }
+
+    private String findSingleton(TypeElement table) {
+        for (VariableElement field : ElementFilter.fieldsIn(table.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.PUBLIC) && modifiers.contains(Modifier.STATIC) &&
+                    processingEnv.getTypeUtils().isSameType(field.asType(), table.asType())) {
+                return field.getSimpleName().toString();
+            }
+        }
+        throw new IllegalArgumentException("no public static singleton field found");
+    }
+
+    /**
+     * Instance fields of type <code>TableField</code> in declaration order, which is the column order of generated
+     * tables.
+     */
+    private List<VariableElement> findTableFields(TypeElement table) {
+        List<VariableElement> fields = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(table.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.STATIC) &&
+                    getTypeArguments(field.asType(), "org.jooq.TableField") != null) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * @return type arguments of the given supertype or <code>null</code> if the type does not extend it
+     */
+    private List<? extends TypeMirror> getTypeArguments(TypeMirror type, String supertype) {
+        if (type instanceof DeclaredType) {
+            TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+            if (element.getQualifiedName().contentEquals(supertype)) {
+                return ((DeclaredType) type).getTypeArguments();
+            }
+        }
+        for (TypeMirror directSupertype : processingEnv.getTypeUtils().directSupertypes(type)) {
+            List<? extends TypeMirror> typeArguments = getTypeArguments(directSupertype, supertype);
+            if (typeArguments != null) {
+                return typeArguments;
+            }
+        }
+        return null;
+    }
+
+    private boolean hasPublicNoArgConstructor(TypeElement type) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getModifiers().contains(Modifier.PUBLIC) && constructor.getParameters().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records of degree 1-22 have typed value setters, e. g. <code>value1(T1)</code>.
+     */
+    private boolean implementsRecordDegree(TypeMirror record, int degree) {
+        return degree <= MAX_RECORD_DEGREE && getTypeArguments(record, "org.jooq.Record" + degree) != null;
+    }
+
+    private void writeServiceFile() {
+        if (generatedMappers.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    "META-INF/services/" + MAPPER_INTERFACE);
+            try (Writer writer = file.openWriter()) {
+                for (String mapper : generatedMappers) {
+                    writer.write(mapper);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write service file: " + e);
+        }
+    }
+
+}
@@ -53,7 +53,7 @@ public class ExecuteReturningTest {
 
         assertNotNull(records);
         if (dslContext.family() == SQLDialect.MYSQL) {
-            // MySQL can only return one row with "last_insert_id"
+            // MySQL can only return one row with "last_insert_id" in the default "interleaved" lock mode
             assertEquals(1, records.size());
             assertNotNull(records.get(0).get(BookTable.BOOK_TABLE.ID));
         } else {
@@ -124,4 +124,30 @@ public class ExecuteReturningTest {
         }
     }
 
+    @Test
+    void executeUpdateReturningOneOfMany() {
+        Query insertQuery = dslContext
+                .insertInto(BookTable.BOOK_TABLE, BookTable.BOOK_TABLE.NAME)
+                .values("ccc")
+                .values("ccc")
+                .values("ccc");
+        ReactiveJooq.execute(insertQuery).block();
+
+        UpdateResultStep<BookRecord> query = dslContext
+                .update(BookTable.BOOK_TABLE)
+                .set(BookTable.BOOK_TABLE.NAME, "bob")
+                .where(BookTable.BOOK_TABLE.NAME.eq("ccc"))
+                .returning(BookTable.BOOK_TABLE.NAME);
+        BookRecord record = ReactiveJooq.executeReturningOne(query).block();
+
+        if (dslContext.family() != SQLDialect.MYSQL) {
+            assertNotNull(record);
+            assertEquals("bob", record.get(BookTable.BOOK_TABLE.NAME));
+        }
+        // the remaining rows are drained, not cancelled
+        Integer count = ReactiveJooq.fetchCount(dslContext.selectFrom(BookTable.BOOK_TABLE)
+                .where(BookTable.BOOK_TABLE.NAME.eq("bob"))).block();
+        assertEquals(3, count);
+    }
+
 }
@@ -1,20 +1,43 @@
 package gofabian;
 
+import gofabian.example.BookPojo;
+import io.r2dbc.h2.H2ConnectionFactory;
+import gofabian.r2dbc.jooq.MemoryBudget;
+import gofabian.r2dbc.jooq.QueryCoalescer;
 import gofabian.r2dbc.jooq.ReactiveJooq;
+import gofabian.r2dbc.jooq.Partitioning;
+import gofabian.r2dbc.jooq.ReadReplicas;
+import gofabian.r2dbc.jooq.ResultCache;
+import gofabian.r2dbc.jooq.ReactivePreparedQuery;
+import gofabian.r2dbc.jooq.ReactivePreparedSelect;
+import gofabian.r2dbc.jooq.SqlCache;
 import org.jooq.DSLContext;
 import org.jooq.Query;
 import org.jooq.Record;
+import org.jooq.Record1;
+import org.jooq.SQLDialect;
 import org.jooq.Select;
+import org.jooq.SelectConditionStep;
 import org.jooq.conf.ParamType;
+import org.jooq.exception.MappingException;
 import org.jooq.impl.SQLDataType;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
 
+import java.beans.ConstructorProperties;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.jooq.impl.DSL.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,6 +51,8 @@ public class QueryTest {
     DatabaseClient databaseClient;
     @Autowired
     DSLContext dslContext;
+    @Autowired
+    ReactiveTransactionManager transactionManager;
 
     @BeforeEach
     void before() {
@@ -61,6 +86,29 @@ public class QueryTest {
         assertEquals(1, insertCount);
     }
 
+    @Test
+    void batch() {
+        List<Query> queries = Arrays.asList(
+                dslContext.insertInto(table(name("tab"))).set(field(name("name")), "a"),
+                dslContext.insertInto(table(name("tab"))).set(field(name("name")), "b"),
+                dslContext.update(table(name("tab"))).set(field(name("name")), "c").where(field(name("name")).eq("b")),
+                dslContext.insertInto(table(name("tab"))).set(field(name("name"), String.class), (String) null)
+        );
+        List<Integer> counts = ReactiveJooq.batch(queries).collectList().block();
+        assertEquals(Arrays.asList(1, 1, 1, 1), counts);
+
+        Query template = dslContext.update(table(name("tab")))
+                .set(field(name("name"), String.class), (String) null)
+                .where(field(name("name"), String.class).eq((String) null));
+        counts = ReactiveJooq.batch(template, new Object[]{"x", "a"}, new Object[]{"y", "unknown"})
+                .collectList().block();
+        assertEquals(Arrays.asList(1, 0), counts);
+
+        Integer count = ReactiveJooq.fetchCount(dslContext.selectFrom(table(name("tab")))
+                .where(field(name("name")).in("fab", "x", "c")).and(field(name("name")).isNotNull())).block();
+        assertEquals(3, count);
+    }
+
     @Test
     void fetch() {
         Select<?> query = dslContext
@@ -72,6 +120,203 @@ public class QueryTest {
         assertEquals("fab", records.get(0).get(name("name"), String.class));
     }
 
+    @Test
+    void fetchWithFetchSize() {
+        Select<?> query = dslContext
+                .select(field(name("id"), Long.class), field(name("name"), String.class))
+                .from(name("tab"));
+        query.fetchSize(1);
+        List<? extends Record> records = ReactiveJooq.fetch(query).collectList().block();
+        assertNotNull(records);
+        assertEquals(1, records.size());
+    }
+
+    @Test
+    void fetchWithQueryTimeout() {
+        Select<?> query = dslContext
+                .select(field(name("id"), Long.class), field(name("name"), String.class))
+                .from(name("tab"));
+        query.queryTimeout(10);
+        List<? extends Record> records = ReactiveJooq.fetch(query).collectList().block();
+        assertNotNull(records);
+        assertEquals(1, records.size());
+    }
+
+    @Test
+    void cancelQueryOnTimeout() {
+        Select<?> query = dslContext.selectCount()
+                .from(table("system_range(1, 1000000) a"), table("system_range(1, 1000000) b"))
+                .where("a.x + b.x = 0");
+        query.queryTimeout(1);
+        long start = System.nanoTime();
+        assertThrows(QueryTimeoutException.class, () -> ReactiveJooq.fetchOne(query).block());
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(10).toNanos());
+
+        // prepared query has the same timeout
+        assertThrows(QueryTimeoutException.class, () -> ReactiveJooq.prepare(query).fetchOne().block());
+
+        // statement has been cancelled, the database is usable
+        assertEquals(1, ReactiveJooq.fetchCount(dslContext.selectFrom(name("tab"))).block());
+    }
+
+    @Test
+    void fetchByKeyset() {
+        for (String name : Arrays.asList("b", "c", "d", "e")) {
+            ReactiveJooq.execute(dslContext.insertInto(table(name("tab"))).set(field(name("name")), name)).block();
+        }
+        Select<?> query = dslContext
+                .select(field(name("id"), Long.class), field(name("name"), String.class))
+                .from(name("tab"))
+                .where(field(name("name")).ne("c"));
+
+        List<? extends Record> records = ReactiveJooq
+                .fetchByKeyset(query, Collections.singletonList(field(name("id"), Long.class)), 2)
+                .collectList().block();
+        assertNotNull(records);
+        assertEquals(Arrays.asList(1L, 2L, 4L, 5L), records.stream()
+                .map(record -> record.get(name("id"), Long.class))
+                .collect(Collectors.toList()));
+
+        // composite key, one record per page
+        records = ReactiveJooq.fetchByKeyset(query, Arrays.asList(field(name("name"), String.class),
+                field(name("id"), Long.class)), 1)
+                .collectList().block();
+        assertNotNull(records);
+        assertEquals(Arrays.asList("b", "d", "e", "fab"), records.stream()
+                .map(record -> record.get(name("name"), String.class))
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void fetchParallel() {
+        for (String name : Arrays.asList("b", "c", "d", "e")) {
+            ReactiveJooq.execute(dslContext.insertInto(table(name("tab"))).set(field(name("name")), name)).block();
+        }
+        Select<?> query = dslContext
+                .select(field(name("id"), Long.class), field(name("name"), String.class))
+                .from(name("tab"))
+                .where(field(name("name")).ne("c"));
+
+        List<? extends Record> records = ReactiveJooq.fetchParallel(query, field(name("id"), Long.class), 3)
+                .collectList().block();
+        assertNotNull(records);
+        assertEquals(Arrays.asList(1L, 2L, 4L, 5L), records.stream()
+                .map(record -> record.get(name("id"), Long.class))
+                .sorted()
+                .collect(Collectors.toList()));
+
+        // explicit partitioning by remainder
+        records = ReactiveJooq.fetchParallel(query, field(name("id"), Long.class), 3, Partitioning.MODULO, false)
+                .collectList().block();
+        assertNotNull(records);
+        assertEquals(4, records.size());
+
+        // no rows, no partitions
+        Select<?> emptyQuery = dslContext.select(field(name("id"), Long.class)).from(name("tab"))
+                .where(field(name("id")).lt(0));
+        assertEquals(0, ReactiveJooq.fetchParallel(emptyQuery, field(name("id"), Long.class), 3).count().block());
+
+        // one after another on the connection of the transaction
+        records = TransactionalOperator.create(transactionManager)
+                .transactional(ReactiveJooq.fetchParallel(query, field(name("id"), Long.class), 3))
+                .collectList().block();
+        assertNotNull(records);
+        assertEquals(4, records.size());
+
+        // PostgreSQL only, see PostgresqlSnapshotTest
+        if (dslContext.family() != SQLDialect.POSTGRES) {
+            assertThrows(IllegalArgumentException.class, () ->
+                    ReactiveJooq.fetchParallel(query, field(name("id"), Long.class), 3, true));
+        }
+    }
+
+    @Test
+    void readReplicas() {
+        DatabaseClient replica = DatabaseClient.create(H2ConnectionFactory.inMemory("replica"));
+        replica.sql("create table \"tab\" (\"id\" bigint primary key, \"name\" varchar)").then().block();
+        replica.sql("insert into \"tab\" values (1, 'replica')").then().block();
+        dslContext.configuration().data("readReplicas",
+                new ReadReplicas(Collections.singletonList(replica.getConnectionFactory())));
+        try {
+            Select<Record1<String>> query = dslContext.select(field(name("name"), String.class)).from(name("tab"));
+            assertEquals("replica", ReactiveJooq.fetchOne(query).block().value1());
+
+            // writes and selects inside of transactions on primary
+            ReactiveJooq.execute(dslContext.update(table(name("tab"))).set(field(name("name")), "primary")).block();
+            assertEquals("primary", TransactionalOperator.create(transactionManager)
+                    .transactional(ReactiveJooq.fetchOne(query)).block().value1());
+            assertEquals("replica", ReactiveJooq.fetchOne(query).block().value1());
+            assertEquals("replica", ReactiveJooq.prepare(query).fetchOne().block().value1());
+
+            // result cache is filled from primary
+            dslContext.configuration().data("resultCache", new ResultCache(1024 * 1024, Duration.ofMinutes(1)));
+            assertEquals("primary", ReactiveJooq.fetchOne(query).block().value1());
+            assertEquals("primary", ReactiveJooq.fetch(query).blockFirst().value1());
+        } finally {
+            dslContext.configuration().data().remove("resultCache");
+            dslContext.configuration().data().remove("readReplicas");
+            replica.sql("drop table \"tab\"").then().block();
+        }
+    }
+
+    @Test
+    void queryCoalescer() {
+        QueryCoalescer coalescer = new QueryCoalescer();
+        dslContext.configuration().data("queryCoalescer", coalescer);
+        try {
+            Select<Record1<String>> query = dslContext.select(field(name("name"), String.class)).from(name("tab"));
+            query.maxRows(100);
+            List<String> names = Flux.merge(ReactiveJooq.fetch(query), ReactiveJooq.fetch(query))
+                    .map(Record1::value1)
+                    .collectList().block();
+            assertEquals(Arrays.asList("fab", "fab"), names);
+            assertEquals(1, ReactiveJooq.fetchCount(query).block());
+            assertEquals(3, coalescer.getExecutionCount() + coalescer.getSharedCount());
+            assertEquals(0, coalescer.size());
+
+            // results without max rows are shared, too
+            Select<Record1<String>> unbounded = dslContext.select(field(name("name"), String.class)).from(name("tab"));
+            assertEquals(1, ReactiveJooq.fetch(unbounded).count().block());
+            assertEquals(4, coalescer.getExecutionCount() + coalescer.getSharedCount());
+        } finally {
+            dslContext.configuration().data().remove("queryCoalescer");
+        }
+    }
+
+    @Test
+    void resultCache() {
+        ResultCache resultCache = new ResultCache(1024 * 1024, Duration.ofMinutes(1));
+        dslContext.configuration().data("resultCache", resultCache);
+        try {
+            Select<Record1<String>> query = dslContext.select(field(name("name"), String.class)).from(name("tab"));
+            assertEquals("fab", ReactiveJooq.fetchOne(query).block().value1());
+            assertEquals("fab", ReactiveJooq.fetchOne(query).block().value1());
+            assertEquals(1, ReactiveJooq.fetch(query).count().block());
+            assertEquals(1, ReactiveJooq.fetch(query).count().block());
+            assertEquals(2, resultCache.getHitCount());
+
+            // invalidated by write
+            ReactiveJooq.execute(dslContext.update(table(name("tab"))).set(field(name("name")), "new")).block();
+            assertEquals("new", ReactiveJooq.fetchOne(query).block().value1());
+
+            // bypassed inside of transaction, invalidated on completion
+            String name = TransactionalOperator.create(transactionManager).transactional(
+                    ReactiveJooq.execute(dslContext.update(table(name("tab"))).set(field(name("name")), "tx"))
+                            .then(ReactiveJooq.fetchOne(query)))
+                    .block().value1();
+            assertEquals("tx", name);
+            assertEquals("tx", ReactiveJooq.fetchOne(query).block().value1());
+
+            // invalidated by prepared query
+            ReactivePreparedQuery update = ReactiveJooq.prepare(dslContext.update(table(name("tab")))
+                    .set(field(name("name"), String.class), (String) null));
+            update.execute("prepared").block();
+            assertEquals("prepared", ReactiveJooq.fetchOne(query).block().value1());
+        } finally {
+            dslContext.configuration().data().remove("resultCache");
+        }
+    }
+
     @Test
     void fetchOne() {
         Select<?> query = dslContext
@@ -92,6 +337,95 @@ public class QueryTest {
         assertEquals("fab", record.get(name("name"), String.class));
     }
 
+    @Test
+    void fetchInto() {
+        Select<?> query = dslContext
+                .select(field(name("id"), Long.class), field(name("name"), String.class))
+                .from(name("tab"));
+        List<BookPojo> pojos = ReactiveJooq.fetchInto(query, BookPojo.class).collectList().block();
+        assertEquals(Collections.singletonList(new BookPojo(1L, "fab")), pojos);
+
+        BookPojo pojo = ReactiveJooq.fetchOneInto(query, BookPojo.class).block();
+        assertEquals(new BookPojo(1L, "fab"), pojo);
+    }
+
+    @Test
+    void fetchIntoLikeFetch() {
+        Select<?> query = dslContext
+                .select(field(name("id"), Long.class), field(name("name"), String.class))
+                .from(name("tab"));
+        ResultCache resultCache = new ResultCache(1024 * 1024, Duration.ofMinutes(1));
+        dslContext.configuration().data("resultCache", resultCache);
+        try {
+            // shares the cached result of fetch()
+            assertEquals(1, ReactiveJooq.fetch(query).count().block());
+            assertEquals(Collections.singletonList(new BookPojo(1L, "fab")),
+                    ReactiveJooq.fetchInto(query, BookPojo.class).collectList().block());
+            assertEquals(new BookPojo(1L, "fab"), ReactiveJooq.fetchOneInto(query, BookPojo.class).block());
+            assertEquals(1, resultCache.getHitCount());
+        } finally {
+            dslContext.configuration().data().remove("resultCache");
+        }
+
+        dslContext.configuration().data("memoryBudget", MemoryBudget.truncateAfter(10));
+        try {
+            assertEquals(0, ReactiveJooq.fetchInto(query, BookPojo.class).count().block());
+        } finally {
+            dslContext.configuration().data().remove("memoryBudget");
+        }
+    }
+
+    @Test
+    void fetchIntoConstructor() {
+        Select<?> query = dslContext
+                .select(field(name("name"), String.class), field(name("id"), Long.class))
+                .from(name("tab"));
+        NameAndId nameAndId = ReactiveJooq.fetchOneInto(query, NameAndId.class).block();
+        assertNotNull(nameAndId);
+        assertEquals("fab", nameAndId.name);
+        assertEquals(1, nameAndId.id);
+    }
+
+    static class NameAndId {
+        final String name;
+        final int id;
+
+        NameAndId(String name, int id) {
+            this.name = name;
+            this.id = id;
+        }
+    }
+
+    @Test
+    void fetchIntoConstructorProperties() {
+        Select<?> query = dslContext
+                .select(field(name("id"), Long.class), field(name("name"), String.class))
+                .from(name("tab"));
+        NameAndId nameAndId = ReactiveJooq.fetchOneInto(query, AnnotatedNameAndId.class).block();
+        assertNotNull(nameAndId);
+        assertEquals("fab", nameAndId.name);
+        assertEquals(1, nameAndId.id);
+
+        assertThrows(MappingException.class, () -> ReactiveJooq.fetchOneInto(query, AmbiguousNameAndId.class));
+    }
+
+    static class AnnotatedNameAndId extends NameAndId {
+        @ConstructorProperties({"name", "id"})
+        AnnotatedNameAndId(String name, int id) {
+            super(name, id);
+        }
+    }
+
+    static class AmbiguousNameAndId extends NameAndId {
+        AmbiguousNameAndId(String name, int id) {
+            super(name, id);
+        }
+
+        AmbiguousNameAndId(long id, String name) {
+            super(name, (int) id);
+        }
+    }
+
     @Test
     void fetchExists() {
         Select<?> query = dslContext
@@ -111,4 +445,90 @@ public class QueryTest {
         assertEquals(1, count);
     }
 
+    @Test
+    void fetchCountEstimate() {
+        Select<?> query = dslContext
+                .select(field(name("id"), Long.class), field(name("name"), String.class))
+                .from(name("tab"));
+        // H2 counts exactly
+        assertEquals(1, ReactiveJooq.fetchCountEstimate(query).block());
+        assertEquals(1, ReactiveJooq.fetchCountEstimate(query, 1000).block());
+    }
+
+    @Test
+    void sqlCache() {
+        SqlCache sqlCache = new SqlCache(10);
+        try {
+            dslContext.configuration().data("sqlCache", sqlCache);
+
+            assertNull(ReactiveJooq.fetchOne(selectName("unknown")).block());
+            assertEquals(1, sqlCache.getMissCount());
+            assertEquals(1, sqlCache.size());
+
+            // query of the same shape built anew with another bind value
+            Record1<String> record = ReactiveJooq.fetchOne(selectName("fab")).block();
+            assertNotNull(record);
+            assertEquals("fab", record.value1());
+            assertEquals(1, sqlCache.getHitCount());
+            assertEquals(1, sqlCache.size());
+
+            // changed structure
+            SelectConditionStep<Record1<String>> query = selectName("fab");
+            query.and(field(name("id")).isNotNull());
+            assertEquals("fab", ReactiveJooq.fetchOne(query).block().value1());
+            assertEquals(2, sqlCache.getMissCount());
+            assertEquals(2, sqlCache.size());
+            assertTrue(sqlCache.getSql(query, dslContext.configuration()).contains("is not null"));
+
+            // inlined values are part of the shape
+            assertEquals(1, ReactiveJooq.fetch(dslContext.selectFrom(name("tab")).where(field(name("id")).eq(inline(1))))
+                    .count().block());
+            assertEquals(0, ReactiveJooq.fetch(dslContext.selectFrom(name("tab")).where(field(name("id")).eq(inline(2))))
+                    .count().block());
+            assertEquals(4, sqlCache.getMissCount());
+        } finally {
+            dslContext.configuration().data().remove("sqlCache");
+        }
+    }
+
+    private SelectConditionStep<Record1<String>> selectName(String name) {
+        return dslContext
+                .select(field(name("name"), String.class))
+                .from(name("tab"))
+                .where(field(name("name"), String.class).eq(name));
+    }
+
+    @Test
+    void preparedQuery() {
+        ReactivePreparedQuery insert = ReactiveJooq.prepare(dslContext
+                .insertInto(table(name("tab")), field(name("name"), String.class))
+                .values((String) null));
+        assertEquals(1, insert.getParamCount());
+        assertEquals(1, insert.execute("bob").block());
+        assertEquals(1, insert.execute("pia").block());
+
+        ReactivePreparedSelect<Record1<String>> select = ReactiveJooq.prepare(dslContext
+                .select(field(name("name"), String.class))
+                .from(name("tab"))
+                .where(field(name("name"), String.class).eq((String) null)));
+        Record1<String> record = select.fetchOne("pia").block();
+        assertNotNull(record);
+        assertEquals("pia", record.value1());
+        assertNull(select.fetchOne("unknown").block());
+        assertEquals(1, select.fetch("bob").collectList().block().size());
+        assertThrows(IllegalArgumentException.class, () -> select.fetch());
+
+        // max rows and memory budget like fetch()
+        Select<Record1<String>> query = dslContext.select(field(name("name"), String.class)).from(name("tab"));
+        query.maxRows(2);
+        ReactivePreparedSelect<Record1<String>> all = ReactiveJooq.prepare(query);
+        assertEquals(2, all.fetch().count().block());
+        dslContext.configuration().data("memoryBudget", MemoryBudget.truncateAfter(10));
+        try {
+            assertEquals(0, all.fetch().count().block());
+        } finally {
+            dslContext.configuration().data().remove("memoryBudget");
+        }
+    }
+
 }
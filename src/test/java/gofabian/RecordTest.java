@@ -3,7 +3,9 @@ package gofabian;
 import gofabian.example.BookPojo;
 import gofabian.example.BookRecord;
 import gofabian.example.BookTable;
+import gofabian.r2dbc.jooq.MemoryBudget;
 import gofabian.r2dbc.jooq.ReactiveJooq;
+import gofabian.r2dbc.jooq.ReactiveUnitOfWork;
 import org.jooq.*;
 import org.jooq.impl.DSL;
 import org.jooq.impl.SQLDataType;
@@ -12,11 +14,18 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataRetrievalFailureException;
 import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -55,6 +64,147 @@ public class RecordTest {
         assertEquals(record.into(BookPojo.class), fetchedRecord.into(BookPojo.class));
     }
 
+    @Test
+    void batchInsert() {
+        List<BookRecord> records = Arrays.asList(
+                dslContext.newRecord(BookTable.BOOK_TABLE).value2("a"),
+                dslContext.newRecord(BookTable.BOOK_TABLE).value2("b"),
+                dslContext.newRecord(BookTable.BOOK_TABLE).value1(42L).value2("c"),
+                dslContext.newRecord(BookTable.BOOK_TABLE).value2("d")
+        );
+        Integer insertCount = ReactiveJooq.batchInsert(records).block();
+        assertEquals(4, insertCount);
+
+        List<BookRecord> fetchedRecords = ReactiveJooq.fetch(dslContext.selectFrom(BookTable.BOOK_TABLE)).collectList().block();
+        assertNotNull(fetchedRecords);
+        assertEquals(4, fetchedRecords.size());
+        for (BookRecord record : records) {
+            assertNotNull(record.value1());
+            assertFalse(record.changed());
+            assertTrue(fetchedRecords.stream().anyMatch(r -> r.value1().equals(record.value1()) &&
+                    r.value2().equals(record.value2())));
+        }
+    }
+
+    @Test
+    void insertAll() {
+        AtomicLong maxRequested = new AtomicLong();
+        Flux<BookRecord> records = Flux.range(0, 25)
+                .doOnRequest(n -> maxRequested.accumulateAndGet(n, Math::max))
+                .map(i -> dslContext.newRecord(BookTable.BOOK_TABLE).value2("book " + i));
+
+        List<Integer> counts = ReactiveJooq.insertAll(records, 10, Duration.ofSeconds(10)).collectList().block();
+        assertEquals(Arrays.asList(10, 10, 5), counts);
+        assertTrue(maxRequested.get() <= 10);
+        assertEquals(25, ReactiveJooq.fetchCount(dslContext.selectFrom(BookTable.BOOK_TABLE)).block());
+    }
+
+    @Test
+    void insertAllAfterLatency() {
+        Flux<BookRecord> records = Flux.concat(
+                Flux.just(dslContext.newRecord(BookTable.BOOK_TABLE).value2("first")),
+                Mono.delay(Duration.ofMillis(500)).thenMany(Flux.just(
+                        dslContext.newRecord(BookTable.BOOK_TABLE).value2("second"))));
+
+        List<Integer> counts = ReactiveJooq.insertAll(records, 10, Duration.ofMillis(50)).collectList().block();
+        assertEquals(Arrays.asList(1, 1), counts);
+    }
+
+    @Test
+    void insertAllEmpty() {
+        List<Integer> counts = ReactiveJooq.insertAll(Flux.empty(), 10, Duration.ofMillis(50)).collectList().block();
+        assertEquals(Collections.emptyList(), counts);
+        assertThrows(IllegalArgumentException.class, () -> ReactiveJooq.insertAll(Flux.empty(), 0, Duration.ofMillis(50)));
+    }
+
+    @Test
+    void batchStore() {
+        BookRecord existing1 = dslContext.newRecord(BookTable.BOOK_TABLE).value2("a");
+        BookRecord existing2 = dslContext.newRecord(BookTable.BOOK_TABLE).value2("b");
+        ReactiveJooq.batchInsert(Arrays.asList(existing1, existing2)).block();
+
+        existing1.value2("a2");
+        existing2.value2("b2");
+        BookRecord unchanged = dslContext.newRecord(BookTable.BOOK_TABLE).value2("c");
+        ReactiveJooq.insert(unchanged).block();
+        BookRecord created = dslContext.newRecord(BookTable.BOOK_TABLE).value2("d");
+
+        Integer storeCount = ReactiveJooq.batchStore(Arrays.asList(existing1, created, existing2, unchanged)).block();
+        assertEquals(3, storeCount);
+        assertNotNull(created.value1());
+        assertFalse(existing1.changed());
+        assertFalse(created.changed());
+
+        List<String> names = ReactiveJooq.fetch(dslContext.selectFrom(BookTable.BOOK_TABLE).orderBy(BookTable.BOOK_TABLE.NAME))
+                .map(BookRecord::value2).collectList().block();
+        assertEquals(Arrays.asList("a2", "b2", "c", "d"), names);
+    }
+
+    @Test
+    void unitOfWork() {
+        BookRecord existing = dslContext.newRecord(BookTable.BOOK_TABLE).value2("a");
+        BookRecord deleted = dslContext.newRecord(BookTable.BOOK_TABLE).value2("b");
+        ReactiveJooq.batchInsert(Arrays.asList(existing, deleted)).block();
+
+        BookRecord created = dslContext.newRecord(BookTable.BOOK_TABLE).value2("c");
+        String result = ReactiveJooq.withUnitOfWork(dslContext, unitOfWork -> {
+            unitOfWork.register(existing).value2("a2");
+            unitOfWork.register(created);
+            return ReactiveUnitOfWork.current()
+                    .doOnNext(current -> current.registerDeleted(deleted))
+                    .thenReturn("done");
+        }).block();
+        assertEquals("done", result);
+        assertNotNull(created.value1());
+        assertFalse(existing.changed());
+        assertFalse(created.changed());
+
+        List<String> names = ReactiveJooq.fetch(dslContext.selectFrom(BookTable.BOOK_TABLE).orderBy(BookTable.BOOK_TABLE.NAME))
+                .map(BookRecord::value2).collectList().block();
+        assertEquals(Arrays.asList("a2", "c"), names);
+    }
+
+    @Test
+    void fetchMaxRows() {
+        ReactiveJooq.batchInsert(Arrays.asList(
+                dslContext.newRecord(BookTable.BOOK_TABLE).value2("a"),
+                dslContext.newRecord(BookTable.BOOK_TABLE).value2("b"),
+                dslContext.newRecord(BookTable.BOOK_TABLE).value2("c")
+        )).block();
+
+        Select<BookRecord> select = dslContext.selectFrom(BookTable.BOOK_TABLE).orderBy(BookTable.BOOK_TABLE.NAME);
+        select.maxRows(2);
+        String sql = select.getSQL();
+        List<String> names = ReactiveJooq.fetch(select).map(BookRecord::value2).collectList().block();
+        assertEquals(Arrays.asList("a", "b"), names);
+        // the query is not modified
+        assertEquals(sql, select.getSQL());
+
+        Select<BookRecord> limitedSelect = dslContext.selectFrom(BookTable.BOOK_TABLE)
+                .orderBy(BookTable.BOOK_TABLE.NAME).limit(10);
+        limitedSelect.maxRows(1);
+        names = ReactiveJooq.fetch(limitedSelect).map(BookRecord::value2).collectList().block();
+        assertEquals(Collections.singletonList("a"), names);
+    }
+
+    @Test
+    void fetchWithMemoryBudget() {
+        ReactiveJooq.batchInsert(Arrays.asList(
+                dslContext.newRecord(BookTable.BOOK_TABLE).value2("a"),
+                dslContext.newRecord(BookTable.BOOK_TABLE).value2("b"),
+                dslContext.newRecord(BookTable.BOOK_TABLE).value2("c")
+        )).block();
+        Select<BookRecord> select = dslContext.selectFrom(BookTable.BOOK_TABLE).orderBy(BookTable.BOOK_TABLE.NAME);
+
+        List<BookRecord> records = ReactiveJooq.fetch(select, MemoryBudget.truncateAfter(500)).collectList().block();
+        assertNotNull(records);
+        assertTrue(records.size() > 0 && records.size() < 3);
+
+        assertThrows(DataRetrievalFailureException.class,
+                () -> ReactiveJooq.fetch(select, MemoryBudget.failAfter(500)).collectList().block());
+        assertEquals(3, ReactiveJooq.fetch(select, MemoryBudget.failAfter(100_000)).count().block());
+    }
+
     @Test
     void updateRecord() {
         BookRecord record = dslContext.newRecord(BookTable.BOOK_TABLE).value1(42L).value2("Java Basics");
@@ -0,0 +1,4 @@
+@GenerateRowMappers({BookTable.class})
+package gofabian.example;
+
+import gofabian.r2dbc.jooq.processor.GenerateRowMappers;
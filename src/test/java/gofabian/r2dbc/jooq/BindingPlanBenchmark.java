@@ -0,0 +1,123 @@
+package gofabian.r2dbc.jooq;
+
+import gofabian.r2dbc.jooq.converter.CompositeConverter;
+import gofabian.r2dbc.jooq.converter.Converter;
+import gofabian.r2dbc.jooq.converter.JsonConverter;
+import io.r2dbc.h2.H2ConnectionFactory;
+import org.jooq.DSLContext;
+import org.jooq.Param;
+import org.jooq.Query;
+import org.jooq.SQLDialect;
+import org.jooq.conf.ParamType;
+import org.jooq.impl.DSL;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.name;
+
+/**
+ * Allocation report, not a test: prints the bytes allocated per bound query before the binding plan (stream based
+ * binding of <code>getParams()</code>) and after it (binding plan of a {@link SqlCache} entry). Queries without SQL
+ * cache are bound directly. Each execution builds its query anew, the allocations of building it are not measured.
+ * <p>
+ * Run its main method with the test classpath, e. g. from the IDE. The numbers depend on the JVM, so compare them on
+ * one machine.
+ */
+public class BindingPlanBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 50_000;
+    private static final int ITERATIONS = 200_000;
+
+    private static final DSLContext DSL_CONTEXT = DSL.using(SQLDialect.H2);
+    private static final Converter CONVERTER = new CompositeConverter(new Converter[]{new JsonConverter()});
+    private static final DatabaseClient DATABASE_CLIENT =
+            DatabaseClient.create(H2ConnectionFactory.inMemory("binding-plan-benchmark"));
+
+    public static void main(String[] args) {
+        SqlCache sqlCache = new SqlCache(10);
+        Supplier<Query> queries = BindingPlanBenchmark::createQuery;
+        int bindCount = createQuery().getBindValues().size();
+
+        report("before: render + stream binding", bindCount, queries, query ->
+                bindWithStream(DATABASE_CLIENT.sql(query.getSQL(ParamType.NAMED)), query.getParams().values()));
+        report("render + direct binding", bindCount, queries, query -> BindingPlan.bind(
+                DATABASE_CLIENT.sql(query.getSQL(ParamType.NAMED)), query.getParams().values(), CONVERTER));
+        report("after: SQL cache + binding plan", bindCount, queries, query -> {
+            SqlCache.Entry entry = sqlCache.getEntry(query, DSL_CONTEXT.configuration());
+            BindingPlan bindingPlan = entry.getBindingPlan();
+            if (bindingPlan == null) {
+                bindingPlan = BindingPlan.create(entry.bindParams, CONVERTER);
+                entry.setBindingPlan(bindingPlan);
+            }
+            return bindingPlan.bind(DATABASE_CLIENT.sql(entry.sql), entry.bindParams);
+        });
+        System.out.println(sqlCache);
+    }
+
+    private static Query createQuery() {
+        return DSL_CONTEXT
+                .select(field(name("id")), field(name("name")))
+                .from(name("tab"))
+                .where(field(name("id"), Long.class).eq(42L))
+                .and(field(name("name"), String.class).eq("fab"))
+                .and(field(name("name"), String.class).ne((String) null))
+                .and(field(name("id"), Long.class).lt(1000L));
+    }
+
+    private static void report(String name, int bindCount, Supplier<Query> queries,
+                               Function<Query, DatabaseClient.GenericExecuteSpec> bind) {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        Query[] batch = new Query[1000];
+
+        long bytes = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS + ITERATIONS; i += batch.length) {
+            for (int j = 0; j < batch.length; j++) {
+                batch[j] = queries.get();
+            }
+            long before = threadMXBean.getThreadAllocatedBytes(threadId);
+            for (Query query : batch) {
+                bind.apply(query);
+            }
+            long after = threadMXBean.getThreadAllocatedBytes(threadId);
+            if (i >= WARMUP_ITERATIONS) {
+                bytes += after - before;
+            }
+        }
+        long bytesPerQuery = bytes / ITERATIONS;
+        System.out.printf("%-35s %8d bytes per query, %6d bytes per bind value%n", name, bytesPerQuery,
+                bytesPerQuery / bindCount);
+    }
+
+    /**
+     * Binding as implemented before the binding plan.
+     */
+    private static DatabaseClient.GenericExecuteSpec bindWithStream(DatabaseClient.GenericExecuteSpec executeSpec,
+                                                                    Collection<Param<?>> params) {
+        List<Param<?>> parameters = params.stream()
+                .filter(p -> p.getParamType() != ParamType.INLINED).collect(Collectors.toList());
+        for (int i = 0; i < parameters.size(); i++) {
+            Param<?> parameter = parameters.get(i);
+            Object bindValue = parameter.getValue();
+            Class<?> bindType = parameter.getType();
+
+            if (bindValue == null) {
+                bindType = CONVERTER.toR2dbcType(bindType);
+                executeSpec = executeSpec.bindNull(i, bindType);
+            } else {
+                bindValue = CONVERTER.toR2dbcValue(bindValue);
+                executeSpec = executeSpec.bind(i, bindValue);
+            }
+        }
+        return executeSpec;
+    }
+
+}
@@ -0,0 +1,65 @@
+package gofabian.r2dbc.jooq;
+
+import gofabian.r2dbc.jooq.converter.CompositeConverter;
+import gofabian.r2dbc.jooq.converter.Converter;
+import io.r2dbc.spi.Row;
+import org.jooq.Field;
+import org.jooq.SQLDialect;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.name;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnReaderTest {
+
+    private final AtomicInteger failedDecodings = new AtomicInteger();
+
+    @Test
+    void fallBackToConversionOncePerColumn() {
+        Converter converter = new CompositeConverter(new Converter[0]);
+        ColumnReader columnReader = new ColumnReader(SQLDialect.POSTGRES, converter, new Field<?>[]{
+                field(name("id"), Long.class), field(name("status"), String.class)});
+        assertTrue(columnReader.isDecodedNatively(0));
+        assertTrue(columnReader.isDecodedNatively(1));
+
+        for (long id = 1; id <= 3; id++) {
+            Object[] values = columnReader.readValues(new StrictRow(id, new StringBuilder("active")));
+            assertEquals(id, values[0]);
+            assertEquals("active", values[1].toString());
+        }
+
+        assertTrue(columnReader.isDecodedNatively(0));
+        assertFalse(columnReader.isDecodedNatively(1));
+        assertEquals(1, failedDecodings.get());
+    }
+
+    /**
+     * Decodes values as their own type or as Object only, like a driver with an unsupported column type.
+     */
+    private class StrictRow implements Row {
+        private final Object[] values;
+
+        StrictRow(Object... values) {
+            this.values = values;
+        }
+
+        @Override
+        public <T> T get(int index, Class<T> type) {
+            Object value = values[index];
+            if (type != Object.class && !type.isInstance(value)) {
+                failedDecodings.incrementAndGet();
+                throw new IllegalArgumentException("Cannot decode " + value.getClass() + " as " + type);
+            }
+            return type.cast(value);
+        }
+
+        @Override
+        public <T> T get(String name, Class<T> type) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
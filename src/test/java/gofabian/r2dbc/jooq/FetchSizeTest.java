@@ -0,0 +1,129 @@
+package gofabian.r2dbc.jooq;
+
+import gofabian.r2dbc.jooq.converter.CompositeConverter;
+import gofabian.r2dbc.jooq.converter.Converter;
+import gofabian.r2dbc.jooq.converter.JsonConverter;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Statement;
+import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.SQLDialect;
+import org.jooq.Select;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static gofabian.example.BookTable.BOOK_TABLE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FetchSizeTest {
+
+    @Test
+    void fetchSizeOfQuery() {
+        DSLContext dslContext = DSL.using(SQLDialect.H2);
+        assertEquals(0, ReactiveQueryExecutor.getFetchSize(dslContext.selectFrom(BOOK_TABLE), new Settings()));
+        assertEquals(100, ReactiveQueryExecutor.getFetchSize(dslContext.selectFrom(BOOK_TABLE).fetchSize(100),
+                new Settings()));
+        assertEquals(100, ReactiveQueryExecutor.getFetchSize(dslContext.resultQuery("select 1").fetchSize(100),
+                new Settings()));
+    }
+
+    @Test
+    void fetchSizeOfSettings() {
+        DSLContext dslContext = DSL.using(SQLDialect.H2);
+        Settings settings = new Settings().withFetchSize(50);
+        assertEquals(50, ReactiveQueryExecutor.getFetchSize(dslContext.selectFrom(BOOK_TABLE), settings));
+        assertEquals(100, ReactiveQueryExecutor.getFetchSize(dslContext.selectFrom(BOOK_TABLE).fetchSize(100),
+                settings));
+        // only result queries are fetched
+        assertEquals(0, ReactiveQueryExecutor.getFetchSize(dslContext.deleteFrom(BOOK_TABLE), settings));
+    }
+
+    @Test
+    void applyFetchSizeToStatement() {
+        List<Integer> fetchSizes = new ArrayList<>();
+        DatabaseClient databaseClient = DatabaseClient.create(
+                new FetchSizeRecorder(H2ConnectionFactory.inMemory("fetchSize"), fetchSizes));
+        DSLContext dslContext = DSL.using(SQLDialect.H2);
+        ReactiveQueryExecutor executor = new ReactiveQueryExecutor(dslContext, databaseClient,
+                new CompositeConverter(new Converter[]{new JsonConverter()}));
+
+        executor.fetch(dslContext.selectOne()).blockLast();
+        assertEquals(Collections.emptyList(), fetchSizes);
+
+        Select<Record1<Integer>> query = dslContext.selectOne();
+        query.fetchSize(100);
+        executor.fetch(query).blockLast();
+        assertEquals(Collections.singletonList(100), fetchSizes);
+
+        executor.prepare(query).fetch().blockLast();
+        assertEquals(2, fetchSizes.size());
+    }
+
+    /**
+     * Records the fetch sizes that are applied to statements.
+     */
+    private static class FetchSizeRecorder implements ConnectionFactory {
+        private final ConnectionFactory delegate;
+        private final List<Integer> fetchSizes;
+
+        FetchSizeRecorder(ConnectionFactory delegate, List<Integer> fetchSizes) {
+            this.delegate = delegate;
+            this.fetchSizes = fetchSizes;
+        }
+
+        @Override
+        public Publisher<? extends Connection> create() {
+            return Mono.from(delegate.create()).map(connection -> proxy(Connection.class, connection, (method, args) ->
+                    method.getName().equals("createStatement")
+                            ? proxy(Statement.class, (Statement) method.invoke(connection, args), null)
+                            : null));
+        }
+
+        @Override
+        public ConnectionFactoryMetadata getMetadata() {
+            return delegate.getMetadata();
+        }
+
+        /**
+         * @param interceptor returns the result of a method or <code>null</code> to invoke the delegate
+         */
+        private <T> T proxy(Class<T> type, T delegate, Interceptor interceptor) {
+            Object proxy = Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                    (p, method, args) -> {
+                        if (method.getName().equals("fetchSize")) {
+                            fetchSizes.add((Integer) args[0]);
+                        }
+                        Object result = interceptor != null ? interceptor.invoke(method, args) : null;
+                        if (result == null) {
+                            try {
+                                result = method.invoke(delegate, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        }
+                        // keep fluent calls on the proxy
+                        return result == delegate ? p : result;
+                    });
+            return type.cast(proxy);
+        }
+
+        private interface Interceptor {
+            Object invoke(Method method, Object[] args) throws Exception;
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package gofabian.r2dbc.jooq;
+
+import gofabian.example.BookRecord;
+import gofabian.example.BookTableRowMapper;
+import gofabian.r2dbc.jooq.converter.CompositeConverter;
+import gofabian.r2dbc.jooq.converter.Converter;
+import gofabian.r2dbc.jooq.converter.JsonConverter;
+import io.r2dbc.spi.Row;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static gofabian.example.BookTable.BOOK_TABLE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeneratedRowMapperTest {
+
+    @Test
+    void discoverGeneratedMapper() {
+        assertTrue(GeneratedRowMappers.get(BookRecord.class) instanceof BookTableRowMapper);
+        assertNull(GeneratedRowMappers.get(org.jooq.Record.class));
+    }
+
+    @Test
+    void mapTableFields() {
+        DSLContext dslContext = DSL.using(SQLDialect.H2);
+        Converter converter = new CompositeConverter(new Converter[]{new JsonConverter()});
+        RowMapper<BookRecord> rowMapper = new RowMapper<>(dslContext, converter, BOOK_TABLE.fields(),
+                BookRecord.class);
+
+        LocalDateTime timestamp = LocalDateTime.of(2020, 1, 2, 3, 4);
+        BookRecord record = rowMapper.map(new ArrayRow(42L, "name", timestamp));
+
+        assertEquals(42L, record.value1());
+        assertEquals("name", record.value2());
+        assertEquals(timestamp, record.value3());
+        assertFalse(record.changed());
+        assertSame(dslContext.configuration(), record.configuration());
+    }
+
+    private static class ArrayRow implements Row {
+        private final Object[] values;
+
+        ArrayRow(Object... values) {
+            this.values = values;
+        }
+
+        @Override
+        public <T> T get(int index, Class<T> type) {
+            return type.cast(values[index]);
+        }
+
+        @Override
+        public <T> T get(String name, Class<T> type) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+package gofabian.r2dbc.jooq;
+
+import gofabian.example.BookRecord;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.Select;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static gofabian.example.BookTable.BOOK_TABLE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MaxRowsTest {
+
+    private final DSLContext dslContext = DSL.using(SQLDialect.H2);
+
+    @Test
+    void maxRows() {
+        Select<BookRecord> select = dslContext.selectFrom(BOOK_TABLE);
+        assertEquals(0, ReactiveQueryExecutor.getMaxRows(select, new Settings()));
+        assertEquals(10, ReactiveQueryExecutor.getMaxRows(select, new Settings().withMaxRows(10)));
+        select.maxRows(5);
+        assertEquals(5, ReactiveQueryExecutor.getMaxRows(select, new Settings().withMaxRows(10)));
+    }
+
+    @Test
+    void estimateRecordSize() {
+        BookRecord empty = dslContext.newRecord(BOOK_TABLE);
+        BookRecord record = dslContext.newRecord(BOOK_TABLE).values(1L, "0123456789", LocalDateTime.now());
+        long emptySize = MemoryBudget.estimateSize(empty);
+        assertTrue(emptySize > 0);
+        assertEquals(emptySize + 24 + 60 + 48, MemoryBudget.estimateSize(record));
+    }
+
+}
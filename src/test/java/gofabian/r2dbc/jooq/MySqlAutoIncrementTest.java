@@ -0,0 +1,94 @@
+package gofabian.r2dbc.jooq;
+
+import gofabian.db.MySqlTest;
+import gofabian.example.BookRecord;
+import org.jooq.DSLContext;
+import org.jooq.InsertResultStep;
+import org.jooq.Query;
+import org.jooq.Record1;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static gofabian.example.BookTable.BOOK_TABLE;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MySQL 8 uses the "interleaved" lock mode by default, so the "traditional" and "consecutive" lock modes are simulated
+ * by the cached auto-increment settings.
+ */
+@SpringBootTest
+@TestPropertySource(properties = MySqlTest.R2DBC_URL_PROPERTY)
+public class MySqlAutoIncrementTest {
+
+    @Autowired
+    DatabaseClient databaseClient;
+    @Autowired
+    DSLContext dslContext;
+
+    @BeforeEach
+    void before() {
+        Query query = dslContext.createTable(DSL.name("book"))
+                .column(DSL.field(DSL.name("id"), Long.class), SQLDataType.BIGINT.identity(true))
+                .column(DSL.field(DSL.name("name"), String.class), SQLDataType.VARCHAR(100))
+                .column(DSL.field(DSL.name("timestamp"), LocalDateTime.class), SQLDataType.LOCALDATETIME)
+                .constraint(DSL.constraint("pk_id").primaryKey(DSL.name("id")));
+        databaseClient.sql(query.getSQL()).fetch().rowsUpdated().block();
+    }
+
+    @AfterEach
+    void after() {
+        dslContext.configuration().data().remove(ReactiveQueryExecutor.MySqlAutoIncrement.DATA_KEY);
+        Query query = dslContext.dropTable(DSL.name("book"));
+        databaseClient.sql(query.getSQL()).fetch().rowsUpdated().block();
+    }
+
+    @Test
+    void deriveConsecutiveIds() {
+        dslContext.configuration().data(ReactiveQueryExecutor.MySqlAutoIncrement.DATA_KEY,
+                new ReactiveQueryExecutor.MySqlAutoIncrement(1, true));
+
+        List<BookRecord> records = ReactiveJooq.executeReturning(insertTwoBooks()).collectList().block();
+
+        assertNotNull(records);
+        assertEquals(2, records.size());
+        assertEquals(fetchIds(), records.stream().map(BookRecord::value1).collect(Collectors.toList()));
+    }
+
+    @Test
+    void doNotDeriveInterleavedIds() {
+        dslContext.configuration().data(ReactiveQueryExecutor.MySqlAutoIncrement.DATA_KEY,
+                new ReactiveQueryExecutor.MySqlAutoIncrement(1, false));
+
+        List<BookRecord> records = ReactiveJooq.executeReturning(insertTwoBooks()).collectList().block();
+
+        assertNotNull(records);
+        assertEquals(1, records.size());
+        assertEquals(fetchIds().get(0), records.get(0).value1());
+    }
+
+    private InsertResultStep<BookRecord> insertTwoBooks() {
+        return dslContext
+                .insertInto(BOOK_TABLE, BOOK_TABLE.NAME)
+                .values("bob")
+                .values("pia")
+                .returning(BOOK_TABLE.ID);
+    }
+
+    private List<Long> fetchIds() {
+        return ReactiveJooq.fetch(dslContext.select(BOOK_TABLE.ID).from(BOOK_TABLE).orderBy(BOOK_TABLE.ID))
+                .map(Record1::value1)
+                .collectList().block();
+    }
+
+}
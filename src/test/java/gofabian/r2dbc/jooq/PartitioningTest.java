@@ -0,0 +1,52 @@
+package gofabian.r2dbc.jooq;
+
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.name;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PartitioningTest {
+
+    private final DSLContext dslContext = DSL.using(SQLDialect.H2);
+    @SuppressWarnings("unchecked")
+    private final Field<Number> id = (Field<Number>) (Field<?>) field(name("id"), Long.class);
+
+    @Test
+    void keyRanges() {
+        assertEquals(Arrays.asList("\"id\" < 2", "(\"id\" >= 2 and \"id\" < 4)", "\"id\" >= 4"),
+                render(ReactiveQueryExecutor.keyRanges(id, 1, 5, 3)));
+        assertEquals(Arrays.asList("\"id\" < -5", "\"id\" >= -5"),
+                render(ReactiveQueryExecutor.keyRanges(id, -10, 0, 2)));
+    }
+
+    @Test
+    void fewerPartitionsForSmallRange() {
+        assertEquals(Arrays.asList("\"id\" < 8", "\"id\" >= 8"),
+                render(ReactiveQueryExecutor.keyRanges(id, 7, 8, 4)));
+        assertEquals(Arrays.asList("\"id\" is not null"),
+                render(ReactiveQueryExecutor.keyRanges(id, 7, 7, 4)));
+    }
+
+    @Test
+    void keyRangesWithoutOverflow() {
+        assertEquals(Arrays.asList("\"id\" < 0", "\"id\" >= 0"),
+                render(ReactiveQueryExecutor.keyRanges(id, Long.MIN_VALUE, Long.MAX_VALUE, 2)));
+    }
+
+    private List<String> render(List<Condition> conditions) {
+        return conditions.stream()
+                .map(condition -> dslContext.renderInlined(condition))
+                .collect(Collectors.toList());
+    }
+
+}
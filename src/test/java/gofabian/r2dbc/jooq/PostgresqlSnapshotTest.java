@@ -0,0 +1,89 @@
+package gofabian.r2dbc.jooq;
+
+import gofabian.db.PostgresqlTest;
+import org.jooq.*;
+import org.jooq.conf.ParamType;
+import org.jooq.impl.SQLDataType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.TestPropertySource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.jooq.impl.DSL.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = PostgresqlTest.R2DBC_URL_PROPERTY)
+public class PostgresqlSnapshotTest {
+
+    private static final Table<Record> TABLE = table(name("snapshot_tab"));
+    private static final Field<Long> ID_FIELD = field(name("id"), SQLDataType.BIGINT);
+
+    @Autowired
+    DatabaseClient databaseClient;
+    @Autowired
+    DSLContext dslContext;
+
+    @BeforeEach
+    public void beforeEach() {
+        databaseClient.sql(dslContext.createTable(TABLE)
+                .column(ID_FIELD)
+                .constraint(constraint(name("pk_snapshot")).primaryKey(ID_FIELD))
+                .getSQL()).fetch().rowsUpdated().block();
+        for (long id = 1; id <= 6; id++) {
+            insert(id).block();
+        }
+    }
+
+    @AfterEach
+    public void afterEach() {
+        databaseClient.sql(dslContext.dropTable(TABLE).getSQL()).fetch().rowsUpdated().block();
+    }
+
+    @Test
+    public void importExportedSnapshot() {
+        // the second execution starts after the first one has committed an insert on another connection
+        List<Long> counts = SharedSnapshot.execute(databaseClient.getConnectionFactory(), 1,
+                client -> Flux.just(1, 2), (execution, client) -> execution == 1
+                        ? count(client).flatMap(count -> insert(7L).thenReturn(count))
+                        : count(client))
+                .collectList().block();
+
+        assertEquals(Arrays.asList(6L, 6L), counts);
+        assertEquals(7L, count(databaseClient).block());
+    }
+
+    @Test
+    public void fetchParallelWithConsistentSnapshot() {
+        Select<Record1<Long>> query = dslContext.select(ID_FIELD).from(TABLE);
+        for (Partitioning partitioning : Partitioning.values()) {
+            List<Long> ids = ReactiveJooq.fetchParallel(query, ID_FIELD, 3, partitioning, true)
+                    .map(Record1::value1)
+                    .collectList().block();
+            assertNotNull(ids);
+            assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L), ids.stream().sorted().collect(Collectors.toList()));
+        }
+    }
+
+    private Mono<Integer> insert(long id) {
+        return databaseClient.sql(dslContext.insertInto(TABLE, ID_FIELD).values(id).getSQL(ParamType.INLINED))
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private Mono<Long> count(DatabaseClient client) {
+        return client.sql(dslContext.selectCount().from(TABLE).getSQL())
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+}
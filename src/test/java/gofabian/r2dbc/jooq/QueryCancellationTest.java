@@ -0,0 +1,103 @@
+package gofabian.r2dbc.jooq;
+
+import gofabian.r2dbc.jooq.converter.CompositeConverter;
+import gofabian.r2dbc.jooq.converter.Converter;
+import gofabian.r2dbc.jooq.converter.JsonConverter;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.SQLDialect;
+import org.jooq.Select;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.jooq.impl.DSL.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class QueryCancellationTest {
+
+    private static final String SELECT_TWO_ROWS = "SELECT X FROM SYSTEM_RANGE(1, 2)";
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final DatabaseClient databaseClient = DatabaseClient.create(new CountingConnectionFactory(
+            H2ConnectionFactory.inMemory("cancellation")));
+
+    @Test
+    void doNotCancelCompletedStatement() {
+        assertEquals(2, QueryCancellation.execute(SQLDialect.H2, databaseClient, client -> client
+                .sql(SELECT_TWO_ROWS)
+                .map(row -> row.get(0))
+                .all())
+                .count().block());
+        assertEquals(1, connections.get());
+    }
+
+    @Test
+    void doNotCancelAfterMaxRows() {
+        DSLContext dslContext = DSL.using(SQLDialect.H2);
+        dslContext.configuration().data(ReactiveQueryExecutor.CANCEL_ON_DISPOSE_KEY, true);
+        ReactiveQueryExecutor executor = new ReactiveQueryExecutor(dslContext, databaseClient,
+                new CompositeConverter(new Converter[]{new JsonConverter()}));
+
+        Select<Record1<Long>> query = dslContext.select(field(name("X"), Long.class))
+                .from(table("SYSTEM_RANGE(1, 2)"));
+        query.maxRows(1);
+        assertEquals(1, executor.fetch(query).count().block());
+        assertEquals(1, connections.get());
+    }
+
+    @Test
+    void cancelRunningStatement() {
+        QueryCancellation.execute(SQLDialect.H2, databaseClient, client -> client
+                .sql(SELECT_TWO_ROWS)
+                .map(row -> row.get(0))
+                .all())
+                .next().block();
+        // statement connection and cancel connection
+        assertEquals(2, connections.get());
+    }
+
+    @Test
+    void skipCancelWhenTooManyCancelConnections() {
+        QueryCancellation.cancelConnections.acquireUninterruptibly(QueryCancellation.MAX_CANCEL_CONNECTIONS);
+        try {
+            QueryCancellation.execute(SQLDialect.H2, databaseClient, client -> client
+                    .sql(SELECT_TWO_ROWS)
+                    .map(row -> row.get(0))
+                    .all())
+                    .next().block();
+            // statement connection only
+            assertEquals(1, connections.get());
+        } finally {
+            QueryCancellation.cancelConnections.release(QueryCancellation.MAX_CANCEL_CONNECTIONS);
+        }
+        assertEquals(QueryCancellation.MAX_CANCEL_CONNECTIONS, QueryCancellation.cancelConnections.availablePermits());
+    }
+
+    private class CountingConnectionFactory implements ConnectionFactory {
+        private final ConnectionFactory delegate;
+
+        CountingConnectionFactory(ConnectionFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Publisher<? extends Connection> create() {
+            return Mono.from(delegate.create()).doOnNext(connection -> connections.incrementAndGet());
+        }
+
+        @Override
+        public ConnectionFactoryMetadata getMetadata() {
+            return delegate.getMetadata();
+        }
+    }
+
+}
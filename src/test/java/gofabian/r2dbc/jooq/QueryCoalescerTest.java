@@ -0,0 +1,119 @@
+package gofabian.r2dbc.jooq;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryCoalescerTest {
+
+    private final QueryCoalescer coalescer = new QueryCoalescer();
+    private final AtomicInteger executions = new AtomicInteger();
+    private final AtomicInteger cancellations = new AtomicInteger();
+    private Sinks.Many<Object[]> sink;
+
+    @Test
+    void shareExecutionInFlight() {
+        List<Object> first = new ArrayList<>();
+        List<Object> second = new ArrayList<>();
+        coalescer.execute(new ResultCache.Key("select", 1), rows()).subscribe(row -> first.add(row[0]));
+        sink.tryEmitNext(new Object[]{"a"});
+
+        // joins late, receives all rows
+        coalescer.execute(new ResultCache.Key("select", 1), rows()).subscribe(row -> second.add(row[0]));
+        sink.tryEmitNext(new Object[]{"b"});
+        sink.tryEmitComplete();
+
+        assertEquals(1, executions.get());
+        assertEquals(1, coalescer.getSharedCount());
+        assertEquals(listOf("a", "b"), first);
+        assertEquals(listOf("a", "b"), second);
+        assertEquals(0, coalescer.size());
+
+        // completed execution is not shared anymore
+        coalescer.execute(new ResultCache.Key("select", 1), rows()).subscribe();
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void stopSharingWhenBufferIsFull() {
+        QueryCoalescer smallCoalescer = new QueryCoalescer(2);
+        List<Object> first = new ArrayList<>();
+        List<Object> second = new ArrayList<>();
+        smallCoalescer.execute(new ResultCache.Key("select"), rows()).subscribe(row -> first.add(row[0]));
+        Sinks.Many<Object[]> firstSink = sink;
+        firstSink.tryEmitNext(new Object[]{"a"});
+        firstSink.tryEmitNext(new Object[]{"b"});
+        assertEquals(0, smallCoalescer.size());
+
+        // buffer is full, a new execution is started
+        smallCoalescer.execute(new ResultCache.Key("select"), rows()).subscribe(row -> second.add(row[0]));
+        sink.tryEmitNext(new Object[]{"x"});
+        sink.tryEmitComplete();
+        firstSink.tryEmitNext(new Object[]{"c"});
+        firstSink.tryEmitComplete();
+
+        assertEquals(2, executions.get());
+        assertEquals(0, smallCoalescer.getSharedCount());
+        assertEquals(listOf("a", "b", "c"), first);
+        assertEquals(listOf("x"), second);
+    }
+
+    @Test
+    void doNotShareDifferentKeys() {
+        coalescer.execute(new ResultCache.Key("select", 1), rows()).subscribe();
+        coalescer.execute(new ResultCache.Key("select", 2), rows()).subscribe();
+        assertEquals(2, executions.get());
+        assertEquals(2, coalescer.size());
+    }
+
+    @Test
+    void cancelWhenAllSubscribersCancel() {
+        Disposable first = coalescer.execute(new ResultCache.Key("select"), rows()).subscribe();
+        List<Object> second = new ArrayList<>();
+        Disposable secondSubscription = coalescer.execute(new ResultCache.Key("select"), rows())
+                .subscribe(row -> second.add(row[0]));
+
+        first.dispose();
+        assertEquals(0, cancellations.get());
+        sink.tryEmitNext(new Object[]{"a"});
+        assertEquals(listOf("a"), second);
+
+        secondSubscription.dispose();
+        assertEquals(1, cancellations.get());
+        assertEquals(0, coalescer.size());
+    }
+
+    @Test
+    void removeFailedExecution() {
+        List<Throwable> errors = new ArrayList<>();
+        coalescer.execute(new ResultCache.Key("select"), rows()).subscribe(row -> {
+        }, errors::add);
+        sink.tryEmitError(new IllegalStateException("failed"));
+        assertEquals(1, errors.size());
+        assertEquals(0, coalescer.size());
+    }
+
+    private Flux<Object[]> rows() {
+        return Flux.defer(() -> {
+            executions.incrementAndGet();
+            sink = Sinks.many().unicast().onBackpressureBuffer();
+            return sink.asFlux().doOnCancel(cancellations::incrementAndGet);
+        });
+    }
+
+    private static List<Object> listOf(Object... values) {
+        List<Object> list = new ArrayList<>();
+        for (Object value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+}
@@ -0,0 +1,62 @@
+package gofabian.r2dbc.jooq;
+
+import gofabian.example.BookTable;
+import gofabian.r2dbc.jooq.converter.CompositeConverter;
+import gofabian.r2dbc.jooq.converter.Converter;
+import io.r2dbc.h2.H2ConnectionFactory;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.TableRecord;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReactiveRecordExecutorTest {
+
+    @Test
+    void chunkByBindValues() {
+        assertEquals(Arrays.asList(32767, 32767, 2), chunkSizes(DSL.using(SQLDialect.POSTGRES), 65536, "book"));
+    }
+
+    @Test
+    void chunkByMaxRows() {
+        DSLContext dslContext = DSL.using(SQLDialect.H2);
+        dslContext.configuration().data(ReactiveRecordExecutor.BATCH_INSERT_MAX_ROWS_KEY, 2);
+        assertEquals(Arrays.asList(2, 2, 1), chunkSizes(dslContext, 5, "book"));
+    }
+
+    @Test
+    void chunkByMaxBytes() {
+        DSLContext dslContext = DSL.using(SQLDialect.H2);
+        // a record with a name of 10 characters is estimated with 64 bytes
+        dslContext.configuration().data(ReactiveRecordExecutor.BATCH_INSERT_MAX_BYTES_KEY, 150L);
+        assertEquals(Arrays.asList(2, 2, 1), chunkSizes(dslContext, 5, "book name "));
+    }
+
+    @Test
+    void chunkMySqlByMaxAllowedPacket() {
+        // 4 MiB / 2044 bytes per record
+        String name = String.join("", Collections.nCopies(1000, "a"));
+        assertEquals(Arrays.asList(2052, 948), chunkSizes(DSL.using(SQLDialect.MYSQL), 3000, name));
+    }
+
+    private List<Integer> chunkSizes(DSLContext dslContext, int recordCount, String name) {
+        Converter converter = new CompositeConverter(new Converter[0]);
+        ReactiveRecordExecutor executor = new ReactiveRecordExecutor(dslContext,
+                DatabaseClient.create(H2ConnectionFactory.inMemory("records")), converter);
+        List<TableRecord<?>> records = new ArrayList<>();
+        for (int i = 0; i < recordCount; i++) {
+            records.add(dslContext.newRecord(BookTable.BOOK_TABLE).value2(name));
+        }
+        return executor.chunk(records).stream().map(List::size).collect(Collectors.toList());
+    }
+
+}
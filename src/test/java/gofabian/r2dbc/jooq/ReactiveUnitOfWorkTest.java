@@ -0,0 +1,75 @@
+package gofabian.r2dbc.jooq;
+
+import org.jooq.*;
+import org.jooq.impl.DSL;
+import org.jooq.impl.Internal;
+import org.jooq.impl.SQLDataType;
+import org.jooq.impl.TableImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReactiveUnitOfWorkTest {
+
+    @Test
+    void sortByReferences() {
+        Node author = new Node("author");
+        Node book = new Node("book", author);
+        Node chapter = new Node("chapter", book);
+        Node page = new Node("page", chapter);
+
+        // book is not given but referenced transitively
+        List<Table<?>> tables = ReactiveUnitOfWork.sortByReferences(Arrays.asList(page, chapter, author));
+        assertEquals(Arrays.asList(author, chapter, page), tables);
+    }
+
+    @Test
+    void sortByReferencesIgnoresSelfReferences() {
+        Node parent = new Node("parent");
+        Node tree = new Node("tree", parent);
+        tree.references.add(createReference(tree, tree));
+
+        List<Table<?>> tables = ReactiveUnitOfWork.sortByReferences(Arrays.asList(tree, parent));
+        assertEquals(Arrays.asList(parent, tree), tables);
+    }
+
+    private static ForeignKey<Record, Record> createReference(Node table, Node referenced) {
+        return Internal.createForeignKey(referenced.getPrimaryKey(), table, "fk_" + referenced.getName(),
+                table.REF);
+    }
+
+    private static class Node extends TableImpl<Record> {
+
+        final TableField<Record, Long> ID = createField(DSL.name("id"), SQLDataType.BIGINT, this, "");
+        final TableField<Record, Long> REF = createField(DSL.name("ref"), SQLDataType.BIGINT, this, "");
+        final List<ForeignKey<Record, ?>> references = new ArrayList<>();
+
+        Node(String name, Node... referenced) {
+            super(DSL.name(name));
+            for (Node table : referenced) {
+                references.add(createReference(this, table));
+            }
+        }
+
+        @Override
+        public UniqueKey<Record> getPrimaryKey() {
+            return Internal.createUniqueKey(this, "pk_" + getName(), ID);
+        }
+
+        @Override
+        public List<UniqueKey<Record>> getKeys() {
+            return Collections.singletonList(getPrimaryKey());
+        }
+
+        @Override
+        public List<ForeignKey<Record, ?>> getReferences() {
+            return references;
+        }
+    }
+
+}
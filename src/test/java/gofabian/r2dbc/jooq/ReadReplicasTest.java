@@ -0,0 +1,68 @@
+package gofabian.r2dbc.jooq;
+
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ReadReplicasTest {
+
+    private final ConnectionFactory primary = H2ConnectionFactory.inMemory("primary");
+    private final ConnectionFactory replica1 = H2ConnectionFactory.inMemory("replica1");
+    private final ConnectionFactory replica2 = H2ConnectionFactory.inMemory("replica2");
+    private final DatabaseClient primaryClient = DatabaseClient.create(primary);
+
+    @Test
+    void roundRobin() {
+        ReadReplicas readReplicas = new ReadReplicas(Arrays.asList(replica1, replica2));
+        assertEquals(Arrays.asList(replica1, replica2, replica1, replica2),
+                Flux.range(0, 4).concatMap(i -> execute(readReplicas, Flux::just)).collectList().block());
+    }
+
+    @Test
+    void ejectOnConnectionFailure() {
+        ReadReplicas readReplicas = new ReadReplicas(Arrays.asList(replica1, replica2));
+        Function<DatabaseClient, Flux<DatabaseClient>> failOnReplica1 = client ->
+                client.getConnectionFactory() == replica1
+                        ? Flux.error(new DataAccessResourceFailureException("connection refused"))
+                        : Flux.just(client);
+
+        // retried on next replica
+        assertEquals(Arrays.asList(replica2, replica2, replica2),
+                Flux.range(0, 3).concatMap(i -> execute(readReplicas, failOnReplica1)).collectList().block());
+        assertEquals(1, readReplicas.getHealthyCount());
+
+        // all replicas ejected
+        Function<DatabaseClient, Flux<DatabaseClient>> failOnReplicas = client ->
+                client.getConnectionFactory() != primary
+                        ? Flux.error(new DataAccessResourceFailureException("connection refused"))
+                        : Flux.just(client);
+        assertEquals(Arrays.asList(primary, primary),
+                Flux.range(0, 2).concatMap(i -> execute(readReplicas, failOnReplicas)).collectList().block());
+        assertEquals(0, readReplicas.getHealthyCount());
+    }
+
+    @Test
+    void noEjectionOnStatementFailure() {
+        ReadReplicas readReplicas = new ReadReplicas(Arrays.asList(replica1, replica2));
+        assertThrows(DataIntegrityViolationException.class, () ->
+                execute(readReplicas, client -> Flux.error(new DataIntegrityViolationException("duplicate")))
+                        .blockLast());
+        assertEquals(2, readReplicas.getHealthyCount());
+    }
+
+    private Flux<ConnectionFactory> execute(ReadReplicas readReplicas,
+                                            Function<DatabaseClient, Flux<DatabaseClient>> execution) {
+        return readReplicas.execute(primaryClient, execution).map(DatabaseClient::getConnectionFactory);
+    }
+
+}
@@ -0,0 +1,106 @@
+package gofabian.r2dbc.jooq;
+
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.jooq.impl.DSL.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResultCacheTest {
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void getTables() {
+        DSLContext dslContext = DSL.using(SQLDialect.H2);
+        assertEquals(new HashSet<>(Arrays.asList("book", "author", "chapter")),
+                ResultCache.getTables(dslContext.configuration(), dslContext.select()
+                        .from(table(name("BOOK")).as("b"))
+                        .join(table(name("author"))).on("1 = 1")
+                        .whereExists(selectOne().from(table(name("chapter"))))));
+        assertEquals(Collections.singleton("book"), ResultCache.getTables(dslContext.configuration(),
+                dslContext.update(table(name("book"))).set(field(name("title")), "x")));
+    }
+
+    @Test
+    void cacheCompletedResults() {
+        ResultCache resultCache = new ResultCache(10_000, Duration.ofMinutes(1));
+        ResultCache.Key key = new ResultCache.Key("select", new Object[]{1});
+
+        assertEquals(2, fetch(resultCache, key, "book").size());
+        assertEquals(2, fetch(resultCache, key, "book").size());
+        assertEquals(1, executions.get());
+        assertEquals(1, resultCache.getHitCount());
+
+        // equal bind values
+        assertEquals(2, fetch(resultCache, new ResultCache.Key("select", new Object[]{1}), "book").size());
+        assertEquals(1, executions.get());
+
+        // cancelled results are not cached
+        ResultCache.Key otherKey = new ResultCache.Key("select", new Object[]{2});
+        resultCache.get(otherKey, () -> Collections.singleton("book"), rows()).take(1).blockLast();
+        fetch(resultCache, otherKey, "book");
+        assertEquals(3, executions.get());
+    }
+
+    @Test
+    void invalidateByTable() {
+        ResultCache resultCache = new ResultCache(10_000, Duration.ofMinutes(1));
+        ResultCache.Key key = new ResultCache.Key("select");
+        fetch(resultCache, key, "book");
+
+        resultCache.invalidate(Collections.singleton("author"));
+        fetch(resultCache, key, "book");
+        assertEquals(1, executions.get());
+
+        resultCache.invalidate(Collections.singleton("BOOK"));
+        fetch(resultCache, key, "book");
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void expire() {
+        ResultCache resultCache = new ResultCache(10_000, Duration.ZERO);
+        ResultCache.Key key = new ResultCache.Key("select");
+        fetch(resultCache, key, "book");
+        fetch(resultCache, key, "book");
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void evictByWeight() {
+        ResultCache resultCache = new ResultCache(500, Duration.ofMinutes(1));
+        for (int i = 0; i < 10; i++) {
+            fetch(resultCache, new ResultCache.Key("select", i), "book");
+        }
+        assertTrue(resultCache.getWeight() <= 500);
+        assertTrue(resultCache.getEvictionCount() > 0);
+
+        // result heavier than the cache
+        ResultCache small = new ResultCache(50, Duration.ofMinutes(1));
+        fetch(small, new ResultCache.Key("select"), "book");
+        assertEquals(0, small.size());
+    }
+
+    private List<Object[]> fetch(ResultCache resultCache, ResultCache.Key key, String table) {
+        return resultCache.get(key, () -> Collections.singleton(table), rows()).collectList().block();
+    }
+
+    private Flux<Object[]> rows() {
+        return Flux.defer(() -> {
+            executions.incrementAndGet();
+            return Flux.just(new Object[]{1L, "a"}, new Object[]{2L, "b"});
+        });
+    }
+
+}
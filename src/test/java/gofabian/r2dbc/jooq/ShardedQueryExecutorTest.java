@@ -0,0 +1,98 @@
+package gofabian.r2dbc.jooq;
+
+import gofabian.r2dbc.jooq.converter.CompositeConverter;
+import gofabian.r2dbc.jooq.converter.Converter;
+import gofabian.r2dbc.jooq.converter.JsonConverter;
+import io.r2dbc.h2.H2ConnectionFactory;
+import org.jooq.*;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.jooq.impl.DSL.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedQueryExecutorTest {
+
+    private final DSLContext dslContext = DSL.using(SQLDialect.H2);
+    private final List<DatabaseClient> databaseClients = Arrays.asList(
+            DatabaseClient.create(H2ConnectionFactory.inMemory("shard1")),
+            DatabaseClient.create(H2ConnectionFactory.inMemory("shard2")));
+    private final ShardedQueryExecutor executor = new ShardedQueryExecutor(dslContext, databaseClients,
+            new CompositeConverter(new Converter[]{new JsonConverter()}));
+
+    private final Table<Record> tab = table(name("tab"));
+    private final Field<Long> id = field(name("id"), Long.class);
+    private final Field<String> name = field(name("name"), String.class);
+
+    @BeforeEach
+    void before() {
+        executor.executeOnAllShards(dslContext.createTable(tab).column(id).column(name)).block();
+        // odd ids on one shard, even ids on the other shard
+        for (long i = 1; i <= 6; i++) {
+            executor.shard(i).execute(dslContext.insertInto(tab, id, name).values(i, i % 3 == 0 ? null : "n" + i))
+                    .block();
+        }
+    }
+
+    @AfterEach
+    void after() {
+        executor.executeOnAllShards(dslContext.dropTable(tab)).block();
+    }
+
+    @Test
+    void routeByShardKey() {
+        assertEquals(1, executor.getShardIndex(1L));
+        assertEquals(0, executor.getShardIndex(2L));
+        assertEquals(Arrays.asList(1L, 3L, 5L), ids(executor.shard(1L).fetch(dslContext.select(id, name).from(tab)
+                .orderBy(id)).collectList().block()));
+    }
+
+    @Test
+    void fetchFromAllShards() {
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L),
+                ids(executor.fetch(dslContext.select(id, name).from(tab).orderBy(id)).collectList().block()));
+        assertEquals(Arrays.asList(6L, 5L, 4L),
+                ids(executor.fetch(dslContext.select(id, name).from(tab).orderBy(id.desc()).limit(3))
+                        .collectList().block()));
+        assertEquals(6, executor.fetch(dslContext.select(id, name).from(tab)).count().block());
+        assertEquals(6, executor.fetchCount(dslContext.selectFrom(tab)).block());
+    }
+
+    @Test
+    void mergeByNullableField() {
+        // H2 orders NULL values first by default
+        assertEquals(Arrays.asList(3L, 6L, 1L, 2L, 4L, 5L),
+                ids(executor.fetch(dslContext.select(id, name).from(tab).orderBy(name, id)).collectList().block()));
+        assertEquals(Arrays.asList(5L, 4L, 2L, 1L, 6L, 3L),
+                ids(executor.fetch(dslContext.select(id, name).from(tab).orderBy(name.desc().nullsLast(), id.desc()))
+                        .collectList().block()));
+    }
+
+    @Test
+    void executeOnAllShards() {
+        assertEquals(6, executor.executeOnAllShards(dslContext.update(tab).set(name, "x")).block());
+        assertEquals(Arrays.asList(2L, 4L, 6L), ids(executor.shard(2L)
+                .fetch(dslContext.select(id, name).from(tab).where(name.eq("x")).orderBy(id)).collectList().block()));
+    }
+
+    @Test
+    void rejectOffsetAndUnselectedOrderBy() {
+        assertThrows(IllegalArgumentException.class, () ->
+                executor.fetch(dslContext.select(id, name).from(tab).orderBy(id).limit(2).offset(2)));
+        assertThrows(IllegalArgumentException.class, () ->
+                executor.fetch(dslContext.select(name).from(tab).orderBy(id)));
+    }
+
+    private List<Long> ids(List<? extends Record> records) {
+        assertNotNull(records);
+        return records.stream().map(record -> record.get(id)).collect(Collectors.toList());
+    }
+
+}
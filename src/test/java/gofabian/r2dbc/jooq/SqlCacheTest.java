@@ -0,0 +1,134 @@
+package gofabian.r2dbc.jooq;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Param;
+import org.jooq.Query;
+import org.jooq.SQLDialect;
+import org.jooq.conf.ParamType;
+import org.jooq.conf.RenderQuotedNames;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.jooq.impl.DSL.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SqlCacheTest {
+
+    private static final Field<Long> ID = field(name("id"), SQLDataType.BIGINT);
+    private static final Field<String> NAME = field(name("name"), SQLDataType.VARCHAR);
+
+    private final DSLContext dslContext = DSL.using(SQLDialect.H2);
+
+    private final List<Function<Object, Query>> queries = Arrays.asList(
+            v -> dslContext.select(ID, NAME).from(table(name("book"))).where(ID.eq((Long) v)),
+            v -> dslContext.select(NAME).from(table(name("book")).as("b"))
+                    .join(table(name("author"))).on(field(name("b", "author_id")).eq(field(name("author", "id"))))
+                    .where(NAME.like(v + "%")).and(ID.gt(3L)),
+            v -> dslContext.selectFrom(table(name("book")))
+                    .where(ID.in(select(ID).from(table(name("chapter"))).where(NAME.eq(v.toString())))),
+            v -> dslContext.select(ID).from(table(name("book"))).where(NAME.eq(v.toString()))
+                    .union(select(ID).from(table(name("author"))).where(NAME.ne(v.toString()))),
+            v -> dslContext.selectFrom(table(name("book"))).orderBy(ID).limit(10).offset((Long) v),
+            v -> dslContext.selectFrom(table(name("book"))).where(ID.in((Long) v, 2L, 3L)),
+            v -> dslContext.insertInto(table(name("book")), ID, NAME).values((Long) v, "name"),
+            v -> dslContext.update(table(name("book"))).set(NAME, v.toString()).where(ID.eq(1L)),
+            v -> dslContext.deleteFrom(table(name("book"))).where(ID.eq((Long) v)),
+            v -> dslContext.resultQuery("select * from book where id = ?", v)
+    );
+
+    @Test
+    void sameShapeForOtherBindValues() {
+        for (Function<Object, Query> query : queries) {
+            Query first = query.apply(1L);
+            Query second = query.apply(2L);
+            assertEquals(shape(first, new ArrayList<>()), shape(second, new ArrayList<>()), first.getSQL());
+        }
+    }
+
+    @Test
+    void otherShapeForOtherStructure() {
+        List<QueryShape> shapes = queries.stream()
+                .map(query -> shape(query.apply(1L), new ArrayList<>()))
+                .collect(Collectors.toList());
+        assertEquals(shapes.size(), shapes.stream().distinct().count());
+
+        assertNotEquals(shape(dslContext.selectFrom(table(name("book"))).where(ID.eq(inline(1L))), new ArrayList<>()),
+                shape(dslContext.selectFrom(table(name("book"))).where(ID.eq(inline(2L))), new ArrayList<>()));
+        assertNotEquals(shape(dslContext.selectFrom(table(name("book"))).where(ID.in(1L, 2L)), new ArrayList<>()),
+                shape(dslContext.selectFrom(table(name("book"))).where(ID.in(1L, 2L, 3L)), new ArrayList<>()));
+
+        Query query = dslContext.selectFrom(table(name("book")));
+        assertNotEquals(QueryShape.of(query, SQLDialect.H2, new ArrayList<>()),
+                QueryShape.of(query, SQLDialect.POSTGRES, new ArrayList<>()));
+    }
+
+    @Test
+    void collectBindParams() {
+        for (Function<Object, Query> query : queries) {
+            Query jooqQuery = query.apply(1L);
+            List<Param<?>> params = new ArrayList<>();
+            QueryShape before = shape(jooqQuery, params);
+            jooqQuery.getSQL();
+
+            assertEquals(before, shape(jooqQuery, new ArrayList<>()), "shape changed by rendering");
+            // e. g. limit and offset have additional parameters that are not rendered
+            for (Param<?> param : jooqQuery.getParams().values()) {
+                assertTrue(params.stream().anyMatch(p -> p == param), jooqQuery.getSQL());
+            }
+        }
+    }
+
+    @Test
+    void cacheByShape() {
+        SqlCache sqlCache = new SqlCache(100);
+        for (Function<Object, Query> query : queries) {
+            for (long i = 1; i <= 3; i++) {
+                Query jooqQuery = query.apply(i);
+                SqlCache.Entry entry = sqlCache.getEntry(jooqQuery, dslContext.configuration());
+                assertEquals(jooqQuery.getSQL(ParamType.NAMED), entry.sql);
+                assertEquals(new ArrayList<>(jooqQuery.getBindValues()), Arrays.asList(entry.getBindValues()));
+            }
+        }
+        assertEquals(queries.size(), sqlCache.size());
+        assertEquals(queries.size(), sqlCache.getMissCount());
+        assertEquals(2 * queries.size(), sqlCache.getHitCount());
+    }
+
+    @Test
+    void renderAgainForOtherSettings() {
+        SqlCache sqlCache = new SqlCache(100);
+        Query query = dslContext.selectFrom(table(name("book")));
+        DSLContext unquoted = DSL.using(SQLDialect.H2,
+                new Settings().withRenderQuotedNames(RenderQuotedNames.NEVER));
+
+        assertTrue(sqlCache.getSql(query, dslContext.configuration()).contains("\"book\""));
+        assertFalse(sqlCache.getSql(unquoted.selectFrom(table(name("book"))), unquoted.configuration())
+                .contains("\"book\""));
+        assertEquals(2, sqlCache.getMissCount());
+    }
+
+    @Test
+    void evict() {
+        SqlCache sqlCache = new SqlCache(2);
+        for (long i = 0; i < 5; i++) {
+            sqlCache.getSql(dslContext.selectFrom(table(name("book"))).where(ID.eq(inline(i))),
+                    dslContext.configuration());
+        }
+        assertEquals(2, sqlCache.size());
+        assertEquals(3, sqlCache.getEvictionCount());
+    }
+
+    private QueryShape shape(Query query, List<Param<?>> params) {
+        return QueryShape.of(query, dslContext.dialect(), params);
+    }
+
+}
@@ -0,0 +1,96 @@
+package gofabian.r2dbc.jooq.converter;
+
+import org.jooq.JSON;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompositeConverterTest {
+
+    @Test
+    void skipConvertersThatDoNotApply() {
+        CountingConverter counting = new CountingConverter();
+        CompositeConverter converter = new CompositeConverter(new Converter[]{new JsonConverter(), counting});
+
+        assertEquals("{}", converter.toR2dbcValue(JSON.valueOf("{}")));
+        assertEquals(1, counting.toR2dbcCalls.get());
+
+        assertEquals(42L, converter.toR2dbcValue(42L));
+        assertEquals(1, counting.toR2dbcCalls.get());
+        assertFalse(converter.convertsToR2dbc(Long.class));
+        assertTrue(converter.convertsToR2dbc(JSON.class));
+
+        assertEquals("text", converter.toJooqValue("text", String.class));
+        assertEquals(0, counting.toJooqCalls.get());
+        assertNull(converter.toJooqValue(null, String.class));
+        assertEquals(String.class, converter.toR2dbcType(JSON.class));
+    }
+
+    @Test
+    void keepChainOrder() {
+        Converter upperCase = new Converter() {
+            @Override
+            public Object toJooqValue(Object r2dbcValue, Class<?> targetJooqType) {
+                return r2dbcValue;
+            }
+
+            @Override
+            public Object toR2dbcValue(Object jooqValue) {
+                return jooqValue instanceof String ? ((String) jooqValue).toUpperCase() : jooqValue;
+            }
+
+            @Override
+            public Class<?> toR2dbcType(Class<?> jooqType) {
+                return jooqType;
+            }
+
+            @Override
+            public boolean convertsToR2dbc(Class<?> jooqType) {
+                return jooqType == String.class;
+            }
+        };
+
+        // JSON is converted to String first, then the String is converted by the following converter
+        Converter converter = new CompositeConverter(new Converter[]{
+                new CompositeConverter(new Converter[]{new JsonConverter()}),
+                upperCase
+        });
+        assertEquals("{\"A\": 1}", converter.toR2dbcValue(JSON.valueOf("{\"a\": 1}")));
+        assertEquals("ABC", converter.toR2dbcValue("abc"));
+    }
+
+    private static class CountingConverter implements Converter {
+        final AtomicInteger toJooqCalls = new AtomicInteger();
+        final AtomicInteger toR2dbcCalls = new AtomicInteger();
+
+        @Override
+        public Object toJooqValue(Object r2dbcValue, Class<?> targetJooqType) {
+            toJooqCalls.incrementAndGet();
+            return r2dbcValue;
+        }
+
+        @Override
+        public Object toR2dbcValue(Object jooqValue) {
+            toR2dbcCalls.incrementAndGet();
+            return jooqValue;
+        }
+
+        @Override
+        public Class<?> toR2dbcType(Class<?> jooqType) {
+            return jooqType;
+        }
+
+        @Override
+        public boolean convertsToJooq(Class<?> r2dbcType, Class<?> targetJooqType) {
+            return r2dbcType != String.class && r2dbcType != Void.class;
+        }
+
+        @Override
+        public boolean convertsToR2dbc(Class<?> jooqType) {
+            return jooqType == String.class;
+        }
+    }
+
+}